@@ -0,0 +1,180 @@
+package com.udacity.vehicles;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.Money;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Builds the fixtures shared by the benchmarks: a fleet of fully populated
+ * cars, an in-memory CarRepository holding them, and JSON responders for the
+ * pricing and maps stubs.
+ */
+public final class Fleet {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private Fleet() {
+    }
+
+    /**
+     * Creates cars with IDs 1 to size, whose addresses are already resolved
+     * as if they had been read back from the database.
+     * @param size the number of cars
+     * @return the cars, in ID order
+     */
+    public static List<Car> cars(int size) {
+        List<Car> cars = new ArrayList<>(size);
+        for (long id = 1; id <= size; id++) {
+            cars.add(car(id));
+        }
+        return cars;
+    }
+
+    /**
+     * Creates one car with every field set and a resolved address.
+     * @param id the ID of the car
+     * @return the car
+     */
+    public static Car car(long id) {
+        Car car = new Car();
+        car.setId(id);
+        car.setCondition(Condition.USED);
+        car.setCreatedAt(LocalDateTime.of(2019, 6, 1, 12, 0));
+        car.setModifiedAt(LocalDateTime.of(2019, 6, 2, 12, 0));
+        Details details = new Details();
+        details.setManufacturer(new Manufacturer(101, "Chevrolet"));
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        Location location = new Location(40.730610 + id * 1e-3, -73.935242 - id * 1e-3);
+        location.setAddress("777 Brockton Avenue");
+        location.setCity("Abington");
+        location.setState("MA");
+        location.setZip("2351");
+        ReflectionTestUtils.setField(location, "addressFingerprint", location.fingerprint());
+        car.setLocation(location);
+        car.setPrice(Money.ofMinor("USD", 1500000));
+        return car;
+    }
+
+    /**
+     * Creates a read-only CarRepository over the given cars. Only the finder
+     * methods the benchmarks reach are supported; filters passed to findAll
+     * are not evaluated, and address updates are accepted and ignored.
+     * @param cars the cars to serve, in ID order
+     * @return the repository
+     */
+    public static CarRepository repository(List<Car> cars) {
+        Map<Long, Car> byId = new LinkedHashMap<>();
+        cars.forEach(car -> byId.put(car.getId(), car));
+        return (CarRepository) Proxy.newProxyInstance(CarRepository.class.getClassLoader(),
+                new Class<?>[] {CarRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "findAll":
+                            if (args == null || (args.length == 2
+                                    && args[1] instanceof Sort && ((Sort) args[1]).isUnsorted())) {
+                                return new ArrayList<>(byId.values());
+                            }
+                            break;
+                        case "findById":
+                            return Optional.ofNullable(byId.get(args[0]));
+                        case "updateAddress":
+                            return 1;
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "CarRepository stub";
+                        default:
+                            break;
+                    }
+                    throw new UnsupportedOperationException(method.toString());
+                });
+    }
+
+    /**
+     * Answers the pricing endpoints with a price between 10000 and 20000
+     * spread over the vehicle IDs.
+     */
+    public static String prices(String path, String request) {
+        try {
+            if (!path.endsWith("/batch")) {
+                Long id = Long.valueOf(path.substring(path.lastIndexOf('/') + 1));
+                return MAPPER.writeValueAsString(price(id));
+            }
+            List<Long> ids = MAPPER.readValue(request, new TypeReference<List<Long>>() {
+            });
+            Map<Long, Map<String, Object>> prices = new HashMap<>();
+            for (Long id : ids) {
+                prices.put(id, price(id));
+            }
+            return MAPPER.writeValueAsString(prices);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Answers the maps endpoints with the same address for every coordinate pair.
+     */
+    public static String addresses(String path, String request) {
+        try {
+            if (!path.endsWith("/batch")) {
+                return MAPPER.writeValueAsString(address());
+            }
+            List<Map<String, Object>> coordinates = MAPPER.readValue(request,
+                    new TypeReference<List<Map<String, Object>>>() {
+                    });
+            List<Map<String, Object>> addresses = new ArrayList<>();
+            for (int i = 0; i < coordinates.size(); i++) {
+                addresses.add(address());
+            }
+            return MAPPER.writeValueAsString(addresses);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Map<String, Object> price(Long id) {
+        Map<String, Object> price = new HashMap<>();
+        price.put("currency", "USD");
+        price.put("price", 10000 + id * 7919 % 10000);
+        price.put("vehicleId", id);
+        return price;
+    }
+
+    private static Map<String, Object> address() {
+        Map<String, Object> address = new HashMap<>();
+        address.put("address", "777 Brockton Avenue");
+        address.put("city", "Abington");
+        address.put("state", "MA");
+        address.put("zip", "2351");
+        return address;
+    }
+}
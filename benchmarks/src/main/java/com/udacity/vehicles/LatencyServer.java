@@ -0,0 +1,63 @@
+package com.udacity.vehicles;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+
+/**
+ * Implements a local HTTP stub standing in for the pricing or maps service,
+ * answering every request after a fixed latency without limiting how many
+ * requests wait at once.
+ */
+public class LatencyServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    /**
+     * Starts a stub on a free local port.
+     * @param latencyMs how long to wait before answering each request
+     * @param responder creates the JSON response body from the request path
+     *   and the request body
+     * @throws IOException if the server cannot be started
+     */
+    public LatencyServer(long latencyMs, BiFunction<String, String, String> responder)
+            throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> handle(exchange, latencyMs, responder));
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange, long latencyMs,
+            BiFunction<String, String, String> responder) throws IOException {
+        try (InputStream in = exchange.getRequestBody(); OutputStream out = exchange.getResponseBody()) {
+            String request = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            Thread.sleep(latencyMs);
+            byte[] body = responder.apply(exchange.getRequestURI().getPath(), request)
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            out.write(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getEndpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,47 @@
+package com.udacity.vehicles;
+
+import java.util.function.BiFunction;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements an in-memory stand-in for the pricing and maps services. Requests
+ * are encoded and responses decoded exactly as over HTTP, but never leave the
+ * JVM, so the benchmarks measure the client code rather than the network.
+ */
+public class StubExchange implements ExchangeFunction {
+
+    private final BiFunction<String, String, String> responder;
+
+    /**
+     * @param responder creates the JSON response body from the request path
+     *   and the request body, which is empty for GET requests
+     */
+    public StubExchange(BiFunction<String, String, String> responder) {
+        this.responder = responder;
+    }
+
+    @Override
+    public Mono<ClientResponse> exchange(ClientRequest request) {
+        MockClientHttpRequest http = new MockClientHttpRequest(request.method(), request.url());
+        return request.writeTo(http, ExchangeStrategies.withDefaults())
+                .then(Mono.defer(http::getBodyAsString))
+                .defaultIfEmpty("")
+                .map(body -> ClientResponse.create(HttpStatus.OK)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .body(responder.apply(request.url().getPath(), body))
+                        .build());
+    }
+
+    public WebClient webClient() {
+        return WebClient.builder().baseUrl("http://localhost").exchangeFunction(this).build();
+    }
+}
@@ -0,0 +1,89 @@
+package com.udacity.vehicles.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.udacity.vehicles.Fleet;
+import com.udacity.vehicles.VehiclesApiApplication;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.service.CarImportService;
+import com.udacity.vehicles.service.ImportReport;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Measures the time CarImportService takes to import a dealer-sized
+ * inventory of newline delimited JSON into the in-memory H2 database,
+ * parsing, validation and batched inserts included. The car table is
+ * emptied before every import.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BulkImportBenchmark {
+
+    @Param({"100000"})
+    int cars;
+
+    private ConfigurableApplicationContext context;
+    private CarImportService importService;
+    private JdbcTemplate jdbcTemplate;
+    private byte[] ndjson;
+
+    @Setup
+    public void setup() throws Exception {
+        context = new SpringApplicationBuilder(VehiclesApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "logging.level.com.udacity=WARN")
+                .run();
+        importService = context.getBean(CarImportService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        ObjectWriter writer = context.getBean(ObjectMapper.class).writerFor(Car.class);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Car car : Fleet.cars(cars)) {
+            out.write(writer.writeValueAsBytes(car));
+            out.write('\n');
+        }
+        ndjson = out.toByteArray();
+    }
+
+    @Setup(Level.Invocation)
+    public void emptyCars() {
+        jdbcTemplate.update("delete from car");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int importCars() throws Exception {
+        ImportReport report = importService.importCars(new ByteArrayInputStream(ndjson));
+        if (report.getImported() != cars) {
+            throw new IllegalStateException("Imported " + report.getImported() + " of " + cars);
+        }
+        return report.getImported();
+    }
+}
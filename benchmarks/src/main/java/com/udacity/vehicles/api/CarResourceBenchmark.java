@@ -0,0 +1,85 @@
+package com.udacity.vehicles.api;
+
+import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.vehicles.Fleet;
+import com.udacity.vehicles.domain.car.Car;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.Resource;
+import org.springframework.hateoas.Resources;
+import org.springframework.hateoas.core.DefaultRelProvider;
+import org.springframework.hateoas.hal.Jackson2HalModule;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * Measures building the HAL resources of the CarResourceAssembler and writing
+ * them as JSON, for a single car as returned by GET /cars/{id} and for a fleet
+ * as returned by GET /cars. The ObjectMapper is set up like the one Spring
+ * HATEOAS registers for HAL responses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarResourceBenchmark {
+
+    @Param({"100"})
+    int fleetSize;
+
+    private final CarResourceAssembler assembler = new CarResourceAssembler();
+    private ObjectMapper objectMapper;
+    private Car car;
+    private List<Car> cars;
+
+    @Setup
+    public void setup() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .modulesToInstall(new Jackson2HalModule())
+                .handlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                        new DefaultRelProvider(), null, null))
+                .build();
+        cars = Fleet.cars(fleetSize);
+        car = cars.get(0);
+        RequestContextHolder.setRequestAttributes(
+                new ServletRequestAttributes(new MockHttpServletRequest("GET", "/cars")), true);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Benchmark
+    public byte[] car() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(assembler.toResource(car));
+    }
+
+    @Benchmark
+    public byte[] fleet() throws JsonProcessingException {
+        List<Resource<Car>> resources = cars.stream().map(assembler::toResource)
+                .collect(Collectors.toList());
+        return objectMapper.writeValueAsBytes(new Resources<>(resources,
+                linkTo(CarController.class).withSelfRel()));
+    }
+}
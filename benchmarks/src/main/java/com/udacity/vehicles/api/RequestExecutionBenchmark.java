@@ -0,0 +1,114 @@
+package com.udacity.vehicles.api;
+
+import com.udacity.vehicles.Fleet;
+import com.udacity.vehicles.LatencyServer;
+import com.udacity.vehicles.VehiclesApiApplication;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compares the default Tomcat thread pool with virtual-thread mode under load.
+ * The Vehicles API is started against pricing and maps stubs that answer
+ * after a fixed latency, with the price cache disabled, and 400 clients call
+ * GET /cars/{id} back to back. The throughput score is the sustained request
+ * rate; the p0.99 line of the sample time score is the p99 latency. The
+ * connection pools of the pricing and maps clients are sized to the number
+ * of clients, so that requests never queue for a connection and the two
+ * modes are compared on request execution alone.
+ *
+ * Virtual-thread mode needs the benchmarks to run on Java 21 or later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Threads(RequestExecutionBenchmark.CLIENTS)
+@Fork(1)
+public class RequestExecutionBenchmark {
+
+    static final int CLIENTS = 400;
+
+    @Param({"false", "true"})
+    boolean virtualThreads;
+
+    @Param({"100"})
+    long latencyMs;
+
+    @Param({"100"})
+    int fleetSize;
+
+    private LatencyServer pricing;
+    private LatencyServer maps;
+    private ConfigurableApplicationContext context;
+    private HttpClient http;
+    private URI cars;
+    private long[] ids;
+
+    @Setup
+    public void setup() throws Exception {
+        pricing = new LatencyServer(latencyMs, Fleet::prices);
+        maps = new LatencyServer(latencyMs, Fleet::addresses);
+        context = new SpringApplicationBuilder(VehiclesApiApplication.class)
+                .properties(
+                        "server.port=0",
+                        "pricing.endpoint=" + pricing.getEndpoint(),
+                        "maps.endpoint=" + maps.getEndpoint(),
+                        "pricing.cache.maximum-size=0",
+                        "pricing.client.max-connections=" + CLIENTS,
+                        "maps.client.max-connections=" + CLIENTS,
+                        "vehicles.virtual-threads.enabled=" + virtualThreads,
+                        "logging.level.com.udacity=WARN")
+                .run();
+
+        List<Car> fleet = Fleet.cars(fleetSize);
+        fleet.forEach(car -> car.setId(null));
+        ids = context.getBean(CarRepository.class).saveAll(fleet).stream()
+                .mapToLong(Car::getId).toArray();
+
+        http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        cars = URI.create("http://localhost:"
+                + context.getEnvironment().getProperty("local.server.port") + "/cars/");
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        pricing.close();
+        maps.close();
+    }
+
+    @Benchmark
+    public int getCar() throws Exception {
+        long id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+        HttpResponse<Void> response = http.send(
+                HttpRequest.newBuilder(cars.resolve(Long.toString(id))).build(),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("GET /cars/" + id + " answered " + response.statusCode());
+        }
+        return response.statusCode();
+    }
+}
@@ -0,0 +1,55 @@
+package com.udacity.vehicles.client.maps;
+
+import com.udacity.vehicles.domain.Location;
+import java.util.concurrent.TimeUnit;
+import org.modelmapper.ModelMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures copying an Address returned by the Maps service onto a Location,
+ * as the MapsClient does for every resolved car, against the reflective
+ * ModelMapper route it used before.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AddressMappingBenchmark {
+
+    private final ModelMapper mapper = new ModelMapper();
+    private final Location location = new Location(40.730610, -73.935242);
+    private Address address;
+
+    @Setup
+    public void setup() {
+        address = new Address();
+        address.setAddress("777 Brockton Avenue");
+        address.setCity("Abington");
+        address.setState("MA");
+        address.setZip("2351");
+        mapper.map(address, location);
+    }
+
+    @Benchmark
+    public Location copyTo() {
+        address.copyTo(location);
+        return location;
+    }
+
+    @Benchmark
+    public Location modelMapper() {
+        mapper.map(address, location);
+        return location;
+    }
+}
@@ -0,0 +1,114 @@
+package com.udacity.vehicles.client.prices;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+
+/**
+ * Measures decoding the price responses of the pricing service into Money,
+ * as the PriceClient does for every price it fetches: the HAL document
+ * Spring Data REST answered with before, the plain JSON price, the binary
+ * price, and batches of BATCH_SIZE prices as JSON and as binary. The size
+ * of each payload is printed during setup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PriceDecodeBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"hal", "json", "binary", "json-batch", "binary-batch"})
+    String format;
+
+    private MediaType contentType;
+    private byte[] payload;
+    private boolean batch;
+
+    @Setup
+    public void setup() throws IOException {
+        batch = format.endsWith("-batch");
+        contentType = format.startsWith("binary") ? PriceCodec.BINARY : MediaType.APPLICATION_JSON;
+        switch (format) {
+            case "hal":
+                payload = (json(1).replace("}", ",\"_links\":{"
+                        + "\"self\":{\"href\":\"http://localhost:9292/prices/1\"},"
+                        + "\"price\":{\"href\":\"http://localhost:9292/prices/1\"}}}"))
+                        .getBytes(StandardCharsets.UTF_8);
+                contentType = MediaType.valueOf("application/hal+json");
+                break;
+            case "json":
+                payload = json(1).getBytes(StandardCharsets.UTF_8);
+                break;
+            case "json-batch":
+                StringBuilder prices = new StringBuilder("{");
+                for (long id = 1; id <= BATCH_SIZE; id++) {
+                    prices.append(id > 1 ? "," : "").append('"').append(id).append("\":").append(json(id));
+                }
+                payload = prices.append('}').toString().getBytes(StandardCharsets.UTF_8);
+                break;
+            case "binary":
+                payload = binary(1, 1);
+                break;
+            case "binary-batch":
+                payload = binary(1, BATCH_SIZE);
+                break;
+            default:
+                throw new IllegalArgumentException(format);
+        }
+        System.out.println(format + " payload: " + payload.length + " bytes");
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return batch ? PriceCodec.decodeAll(contentType, payload) : PriceCodec.decode(contentType, payload);
+    }
+
+    private static String json(long vehicleId) {
+        return "{\"vehicleId\":" + vehicleId + ",\"currency\":\"usd\",\"price\":" + price(vehicleId) + "}";
+    }
+
+    private static BigDecimal price(long vehicleId) {
+        return BigDecimal.valueOf(1000000 + vehicleId * 7919 % 1000000, 2);
+    }
+
+    /**
+     * Encodes prices as the pricing service does; a count is written first
+     * for batches.
+     */
+    private static byte[] binary(long firstId, int count) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        if (count > 1) {
+            out.writeInt(count);
+        }
+        for (long id = firstId; id < firstId + count; id++) {
+            BigDecimal price = price(id);
+            out.writeLong(id);
+            out.writeUTF("usd");
+            out.writeInt(price.scale());
+            byte[] unscaled = price.unscaledValue().toByteArray();
+            out.writeShort(unscaled.length);
+            out.write(unscaled);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.Fleet;
+import com.udacity.vehicles.StubExchange;
+import com.udacity.vehicles.client.maps.AddressCache;
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Money;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarFilter;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Measures CarService.list, with and without a price range and order, and
+ * CarService.findById against in-memory pricing and maps stubs and an
+ * in-memory CarRepository. With a price cache size of 0
+ * every call goes through the batch request, JSON encoding and decoding path
+ * of the PriceClient; otherwise prices are served from the warm cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CarServiceBenchmark {
+
+    @Param({"100", "1000"})
+    int fleetSize;
+
+    @Param({"0", "10000"})
+    long priceCacheSize;
+
+    private CarService service;
+
+    @Setup
+    public void setup() {
+        List<Car> cars = Fleet.cars(fleetSize);
+        MapsClient maps = new MapsClient(new StubExchange(Fleet::addresses).webClient(),
+                new AddressCache(4, 1 << 24, new SimpleMeterRegistry()), 100, 2000,
+                CircuitBreakerRegistry.ofDefaults());
+        PriceClient pricing = new PriceClient(new StubExchange(Fleet::prices).webClient(),
+                100, priceCacheSize, 600, 60, 2000, new SimpleMeterRegistry(),
+                CircuitBreakerRegistry.ofDefaults());
+        service = new CarService(Fleet.repository(cars), maps, pricing, 64, Schedulers.elastic());
+    }
+
+    @Benchmark
+    public List<Car> list() {
+        return service.list();
+    }
+
+    @Benchmark
+    public List<Car> listByPrice() {
+        return service.list(new CarFilter(), PriceRange.between(Money.ofMinor("USD", 1200000), null),
+                Sort.by(Sort.Direction.DESC, "price"));
+    }
+
+    @Benchmark
+    public Car findById() {
+        return service.findById(ThreadLocalRandom.current().nextLong(1, fleetSize + 1));
+    }
+}
@@ -1,6 +1,10 @@
 package com.udacity.boogle.maps;
 
+import java.util.List;
+import java.util.stream.Collectors;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -13,4 +17,16 @@ public class MapsController {
     public Address get(@RequestParam Double lat, @RequestParam Double lon) {
         return MockAddressRepository.getRandom();
     }
+
+    /**
+     * Reverse geocodes several coordinates in one request.
+     * @param coordinates the latitude and longitude pairs to resolve
+     * @return one address per coordinate pair, in request order
+     */
+    @PostMapping("/batch")
+    public List<Address> batch(@RequestBody List<Coordinates> coordinates) {
+        return coordinates.stream()
+                .map(c -> MockAddressRepository.getRandom())
+                .collect(Collectors.toList());
+    }
 }
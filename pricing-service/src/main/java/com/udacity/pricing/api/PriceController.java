@@ -0,0 +1,68 @@
+package com.udacity.pricing.api;
+
+import com.udacity.pricing.service.EncodedPrice;
+import com.udacity.pricing.service.PriceCodec;
+import com.udacity.pricing.service.PriceImportService;
+import com.udacity.pricing.service.PriceService;
+import com.udacity.pricing.service.UpsertReport;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Implements the bulk price endpoints next to the per-id endpoints that
+ * Spring Data REST exposes for the PriceRepository. Bulk lookups are
+ * answered from the in-memory price table; bulk writes go to the database
+ * in JDBC batches.
+ */
+@RestController
+@RequestMapping("/prices")
+public class PriceController {
+
+    private final PriceService priceService;
+    private final PriceImportService importService;
+
+    public PriceController(PriceService priceService, PriceImportService importService) {
+        this.priceService = priceService;
+        this.importService = importService;
+    }
+
+    /**
+     * Gets the prices of several vehicles at once, as a JSON object keyed by
+     * vehicle ID, or as a binary batch if the client accepts it.
+     * @param vehicleIds ID numbers of the vehicles for which to get prices
+     * @param accept the Accept header of the request
+     * @return prices keyed by vehicle ID; unknown vehicles are left out
+     */
+    @PostMapping(value = "/batch", produces = {MediaType.APPLICATION_JSON_VALUE, PriceCodec.BINARY_VALUE})
+    public ResponseEntity<byte[]> batch(@RequestBody List<Long> vehicleIds,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        List<EncodedPrice> prices = priceService.getPrices(vehicleIds);
+        if (PriceCodec.acceptsBinary(accept)) {
+            return ResponseEntity.ok().contentType(PriceCodec.BINARY).body(PriceCodec.binaryBatch(prices));
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(PriceCodec.jsonBatch(prices));
+    }
+
+    /**
+     * Creates or updates many prices at once, given as a JSON array or as
+     * newline delimited JSON. The body is read as it arrives rather than
+     * bound as a whole, and invalid rows are reported instead of failing
+     * the request.
+     * @param body the prices to write
+     * @return the number of prices created and updated, and the rejected rows
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<UpsertReport> bulkUpsert(InputStream body) throws IOException {
+        return ResponseEntity.ok(importService.importPrices(body));
+    }
+}
@@ -0,0 +1,71 @@
+package com.udacity.pricing.api;
+
+import com.udacity.pricing.service.EncodedPrice;
+import com.udacity.pricing.service.PriceCodec;
+import com.udacity.pricing.service.PriceFeed;
+import com.udacity.pricing.service.PriceService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Serves single prices straight from the in-memory price table, without
+ * the repository, HAL links or content negotiation of Spring Data REST.
+ * Prices are written as encoded when they entered the table: plain JSON,
+ * or the binary encoding of PriceCodec for clients that accept it.
+ * Every price carries a strong ETag; a request whose If-None-Match holds
+ * it is answered with 304 and no body, which Spring MVC does for any
+ * ResponseEntity with an ETag.
+ * It lives under its own path because a controller mapped to /prices/{id}
+ * would shadow the Data REST write operations on the same path.
+ */
+@RestController
+@RequestMapping("/price-table")
+public class PriceTableController {
+
+    private final PriceService priceService;
+    private final PriceFeed priceFeed;
+
+    public PriceTableController(PriceService priceService, PriceFeed priceFeed) {
+        this.priceService = priceService;
+        this.priceFeed = priceFeed;
+    }
+
+    /**
+     * Streams every current price, then every change of the price table,
+     * as server-sent events.
+     * @return the event stream
+     */
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter changes() {
+        return priceFeed.subscribe();
+    }
+
+    /**
+     * Gets the price of a vehicle.
+     * @param vehicleId ID number of the vehicle for which to get the price
+     * @param accept the Accept header of the request
+     * @return the price with its ETag, 304 if it matches If-None-Match, or
+     *   404 if the vehicle has none
+     */
+    @GetMapping(value = "/{vehicleId}", produces = {MediaType.APPLICATION_JSON_VALUE, PriceCodec.BINARY_VALUE})
+    public ResponseEntity<byte[]> get(@PathVariable long vehicleId,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        EncodedPrice price = priceService.getPrice(vehicleId);
+        if (price == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (PriceCodec.acceptsBinary(accept)) {
+            return ResponseEntity.ok().eTag(price.getBinaryEtag()).varyBy(HttpHeaders.ACCEPT)
+                    .contentType(PriceCodec.BINARY).body(price.getBinary());
+        }
+        return ResponseEntity.ok().eTag(price.getJsonEtag()).varyBy(HttpHeaders.ACCEPT)
+                .contentType(MediaType.APPLICATION_JSON).body(price.getJson());
+    }
+}
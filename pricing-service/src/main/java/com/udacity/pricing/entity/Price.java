@@ -1,15 +1,19 @@
 package com.udacity.pricing.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonTypeId;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import javax.persistence.Version;
 import java.math.BigDecimal;
 
 /**
- * Represents the price of a given vehicle, including currency.
+ * Represents the price of a given vehicle, including currency. The version
+ * is raised on every update; it is served as the ETag of the price rather
+ * than in its body.
  */
 
 @Entity
@@ -20,6 +24,9 @@ public class Price {
     private Long vehicleId;
     private String currency;
     private BigDecimal price;
+    @Version
+    @JsonIgnore
+    private Long version;
 
     public Price() {
     }
@@ -53,4 +60,12 @@ public class Price {
     public void setPrice(BigDecimal price) {
         this.price = price;
     }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,67 @@
+package com.udacity.pricing.service;
+
+import com.udacity.pricing.entity.Price;
+import java.util.zip.CRC32;
+
+/**
+ * Holds a price together with its JSON and binary encodings, rendered once
+ * when the price enters the price table, so that serving it copies bytes
+ * instead of serializing objects. Neither the price nor the byte arrays
+ * may be modified. The version is that of the price table when the price
+ * was written.
+ *
+ * Each encoding has a strong ETag made of the version of the price entity
+ * and a checksum of the price, so that it changes with every update, and
+ * also when a removed price is created again with a different value.
+ */
+public final class EncodedPrice {
+
+    private final Price price;
+    private final byte[] json;
+    private final byte[] binary;
+    private final String jsonEtag;
+    private final String binaryEtag;
+    private final long version;
+
+    EncodedPrice(Price price, long version) {
+        this.price = new Price(price.getCurrency(), price.getPrice(), price.getVehicleId());
+        this.price.setVersion(price.getVersion());
+        this.json = PriceCodec.json(this.price);
+        this.binary = PriceCodec.binary(this.price);
+        CRC32 checksum = new CRC32();
+        checksum.update(binary);
+        String tag = (price.getVersion() == null ? 0 : price.getVersion())
+                + "-" + Long.toHexString(checksum.getValue());
+        this.jsonEtag = "\"" + tag + "\"";
+        this.binaryEtag = "\"" + tag + "-bin\"";
+        this.version = version;
+    }
+
+    public long getVehicleId() {
+        return price.getVehicleId();
+    }
+
+    public Price getPrice() {
+        return price;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getBinary() {
+        return binary;
+    }
+
+    public String getJsonEtag() {
+        return jsonEtag;
+    }
+
+    public String getBinaryEtag() {
+        return binaryEtag;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+}
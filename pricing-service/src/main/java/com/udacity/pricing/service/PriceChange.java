@@ -0,0 +1,55 @@
+package com.udacity.pricing.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Represents a write to the price table: the new price of a vehicle, or
+ * its removal, and the version of the table the write produced. Later
+ * versions supersede earlier ones.
+ */
+public final class PriceChange {
+
+    private final long vehicleId;
+    private final String currency;
+    private final BigDecimal price;
+    private final long version;
+    private final boolean deleted;
+
+    private PriceChange(long vehicleId, String currency, BigDecimal price, long version,
+            boolean deleted) {
+        this.vehicleId = vehicleId;
+        this.currency = currency;
+        this.price = price;
+        this.version = version;
+        this.deleted = deleted;
+    }
+
+    static PriceChange saved(EncodedPrice price) {
+        return new PriceChange(price.getVehicleId(), price.getPrice().getCurrency(),
+                price.getPrice().getPrice(), price.getVersion(), false);
+    }
+
+    static PriceChange deleted(long vehicleId, long version) {
+        return new PriceChange(vehicleId, null, null, version, true);
+    }
+
+    public long getVehicleId() {
+        return vehicleId;
+    }
+
+    public String getCurrency() {
+        return currency;
+    }
+
+    public BigDecimal getPrice() {
+        return price;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+}
@@ -0,0 +1,118 @@
+package com.udacity.pricing.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.udacity.pricing.entity.Price;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+/**
+ * Encodes prices as plain JSON, without the HAL links of Spring Data REST,
+ * and in a compact binary form for clients that ask for BINARY.
+ *
+ * A binary price is the vehicle ID as a long, the currency code as
+ * modified UTF-8 with a two-byte length, the scale of the amount as an int
+ * and its unscaled value as two's complement bytes with a two-byte length,
+ * all big-endian. A missing currency is written as an empty string and a
+ * missing amount as zero bytes. A binary batch is the number of prices as
+ * an int followed by the prices.
+ */
+public final class PriceCodec {
+
+    public static final String BINARY_VALUE = "application/x-price-binary";
+
+    public static final MediaType BINARY = MediaType.valueOf(BINARY_VALUE);
+
+    private static final ObjectWriter JSON_WRITER = new ObjectMapper().writerFor(Price.class);
+
+    private PriceCodec() {
+    }
+
+    /**
+     * Tells whether a client asked for the binary encoding.
+     * @param accept the Accept header of the request, if any
+     * @return true if the header accepts BINARY
+     */
+    public static boolean acceptsBinary(String accept) {
+        if (accept == null) {
+            return false;
+        }
+        try {
+            return MediaType.parseMediaTypes(accept).stream()
+                    .anyMatch(type -> BINARY.equalsTypeAndSubtype(type) && type.getQualityValue() > 0);
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    static byte[] json(Price price) {
+        try {
+            return JSON_WRITER.writeValueAsBytes(price);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static byte[] binary(Price price) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(price.getVehicleId());
+            out.writeUTF(price.getCurrency() == null ? "" : price.getCurrency());
+            BigDecimal amount = price.getPrice();
+            out.writeInt(amount == null ? 0 : amount.scale());
+            byte[] unscaled = amount == null ? new byte[0] : amount.unscaledValue().toByteArray();
+            out.writeShort(unscaled.length);
+            out.write(unscaled);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Joins encoded prices into a JSON object keyed by vehicle ID.
+     * @param prices the prices
+     * @return the JSON object
+     */
+    public static byte[] jsonBatch(List<EncodedPrice> prices) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(2 + prices.size() * 64);
+        out.write('{');
+        for (int i = 0; i < prices.size(); i++) {
+            EncodedPrice price = prices.get(i);
+            if (i > 0) {
+                out.write(',');
+            }
+            byte[] key = ("\"" + price.getVehicleId() + "\":").getBytes(StandardCharsets.US_ASCII);
+            out.write(key, 0, key.length);
+            out.write(price.getJson(), 0, price.getJson().length);
+        }
+        out.write('}');
+        return out.toByteArray();
+    }
+
+    /**
+     * Joins encoded prices into a binary batch.
+     * @param prices the prices
+     * @return the binary batch
+     */
+    public static byte[] binaryBatch(List<EncodedPrice> prices) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + prices.size() * 24);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(prices.size());
+            for (EncodedPrice price : prices) {
+                out.write(price.getBinary());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
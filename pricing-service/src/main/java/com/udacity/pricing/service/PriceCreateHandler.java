@@ -0,0 +1,33 @@
+package com.udacity.pricing.service;
+
+import com.udacity.pricing.entity.Price;
+import com.udacity.pricing.repository.PriceRepository;
+import org.springframework.data.rest.core.annotation.HandleBeforeCreate;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps POST /prices an upsert. Vehicle IDs are assigned by the client, and
+ * a price without a version is taken for a new one, so creating a price
+ * that already exists would fail on the duplicate key. A price posted for
+ * a vehicle that has one takes over the current version, and is saved as
+ * an update of it.
+ */
+@Component
+@RepositoryEventHandler
+public class PriceCreateHandler {
+
+    private final PriceRepository repository;
+
+    public PriceCreateHandler(PriceRepository repository) {
+        this.repository = repository;
+    }
+
+    @HandleBeforeCreate
+    public void beforeCreate(Price price) {
+        if (price.getVehicleId() != null && price.getVersion() == null) {
+            repository.findById(price.getVehicleId())
+                    .ifPresent(existing -> price.setVersion(existing.getVersion()));
+        }
+    }
+}
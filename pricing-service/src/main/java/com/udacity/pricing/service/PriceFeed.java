@@ -0,0 +1,205 @@
+package com.udacity.pricing.service;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * Pushes the changes of the price table to subscribers as server-sent
+ * events, so that they can keep a replica of the prices instead of asking
+ * for them. A new subscriber first receives every current price, then a
+ * "ready" event, then every change as it happens. Each "price" event holds
+ * a PriceChange; as the initial prices and the changes may overlap, a
+ * subscriber keeps, per vehicle, the event with the highest version.
+ * Subscribers are sent a comment every heartbeat interval, so that idle
+ * connections are neither timed out nor left open once dropped.
+ * <p>
+ * Changes and heartbeats are queued per subscriber and sent from a pool of
+ * sender threads, so saving a price never waits on a subscriber. A
+ * subscriber that falls more than max-pending events behind is ended, and
+ * reconnects to a fresh copy of the prices.
+ */
+@Component
+public class PriceFeed implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceFeed.class);
+
+    private final PriceTable priceTable;
+    private final long timeoutMs;
+    private final int maxPending;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "price-feed-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService senders = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "price-feed-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public PriceFeed(PriceTable priceTable,
+            @Value("${pricing.feed.timeout-ms:600000}") long timeoutMs,
+            @Value("${pricing.feed.heartbeat-ms:15000}") long heartbeatMs,
+            @Value("${pricing.feed.max-pending:10000}") int maxPending) {
+        this.priceTable = priceTable;
+        this.timeoutMs = timeoutMs;
+        this.maxPending = maxPending;
+        heartbeats.scheduleAtFixedRate(this::heartbeat, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Subscribes to the changes of the price table. The subscription ends
+     * after the feed timeout; subscribers are expected to subscribe again.
+     * @return the emitter of the events
+     */
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::ended);
+        emitter.onTimeout(subscriber::ended);
+        emitter.onError(e -> subscriber.ended());
+        subscribers.add(subscriber);
+        PriceTable.Snapshot snapshot = priceTable.snapshot();
+        try {
+            for (EncodedPrice price : snapshot.prices()) {
+                emitter.send(event(PriceChange.saved(price)));
+            }
+            emitter.send(SseEmitter.event().name("ready").data(snapshot.version()));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping price feed subscriber", e);
+            subscriber.close();
+        }
+        return emitter;
+    }
+
+    /**
+     * Queues a change of the price table for every subscriber.
+     * @param change the change
+     */
+    @EventListener
+    public void publish(PriceChange change) {
+        SseEmitter.SseEventBuilder event = event(change);
+        subscribers.forEach(subscriber -> subscriber.offer(event));
+    }
+
+    @Override
+    public void destroy() {
+        heartbeats.shutdownNow();
+        subscribers.forEach(Subscriber::close);
+        senders.shutdown();
+    }
+
+    private void heartbeat() {
+        SseEmitter.SseEventBuilder event = SseEmitter.event().comment("heartbeat");
+        subscribers.forEach(subscriber -> subscriber.offer(event));
+    }
+
+    private static SseEmitter.SseEventBuilder event(PriceChange change) {
+        return SseEmitter.event()
+                .name("price")
+                .id(Long.toString(change.getVersion()))
+                .data(change, MediaType.APPLICATION_JSON);
+    }
+
+    /**
+     * Holds the events not yet sent to one subscriber, and sends them in
+     * order from one sender thread at a time. Only that thread ends the
+     * emitter, as a send in progress would hold up any other thread.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<SseEmitter.SseEventBuilder> events = new ArrayBlockingQueue<>(maxPending);
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile boolean ended;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            if (!events.offer(event)) {
+                log.info("Ending price feed subscriber more than {} events behind", maxPending);
+                close();
+                return;
+            }
+            schedule();
+        }
+
+        /**
+         * Stops queueing events and has the emitter completed.
+         */
+        void close() {
+            closed = true;
+            subscribers.remove(this);
+            schedule();
+        }
+
+        /**
+         * Forgets a subscriber whose emitter has completed, timed out or failed.
+         */
+        void ended() {
+            ended = true;
+            closed = true;
+            subscribers.remove(this);
+        }
+
+        private void schedule() {
+            if (!ended && sending.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::send);
+                } catch (RejectedExecutionException e) {
+                    sending.set(false);
+                }
+            }
+        }
+
+        private void send() {
+            try {
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = events.poll()) != null) {
+                    emitter.send(event);
+                }
+                if (closed && !ended) {
+                    ended = true;
+                    events.clear();
+                    emitter.complete();
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Dropping price feed subscriber", e);
+                ended = true;
+                closed = true;
+                subscribers.remove(this);
+                events.clear();
+                emitter.completeWithError(e);
+            } finally {
+                sending.set(false);
+            }
+            if (!ended && (closed || !events.isEmpty())) {
+                schedule();
+            }
+        }
+    }
+}
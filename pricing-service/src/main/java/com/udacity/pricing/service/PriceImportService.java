@@ -0,0 +1,218 @@
+package com.udacity.pricing.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.udacity.pricing.entity.Price;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Currency;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implements writing many prices at once, as when a repricing run updates
+ * thousands of vehicles. Prices are read one at a time from a JSON array or
+ * from newline delimited JSON, validated, and written in chunks of one
+ * transaction each. A chunk is written with plain JDBC batches, bypassing
+ * the select-then-update of the repository: one batch of updates, one
+ * batch of inserts for the vehicles the updates missed, and one query
+ * reading back the rows written, which then enter the price table as a
+ * single snapshot swap. A vehicle listed more than once in a chunk is
+ * written once, with its last price. Invalid rows are reported and do not
+ * stop the run.
+ */
+@Service
+public class PriceImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceImportService.class);
+
+    private static final String UPDATE =
+            "update price set currency = ?, price = ?, version = version + 1 where vehicleid = ?";
+
+    private static final String INSERT =
+            "insert into price (vehicleid, currency, price, version) values (?, ?, ?, 0)";
+
+    private static final String SELECT =
+            "select vehicleid, currency, price, version from price where vehicleid in (:ids)";
+
+    private final ObjectReader priceReader;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PriceTable priceTable;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    public PriceImportService(ObjectMapper objectMapper, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, PriceTable priceTable,
+            @Value("${pricing.import.chunk-size:1000}") int chunkSize,
+            @Value("${pricing.import.max-reported-errors:100}") int maxReportedErrors) {
+        this.priceReader = objectMapper.readerFor(Price.class);
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.priceTable = priceTable;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Creates or updates the prices of a JSON array, or of JSON objects
+     * separated by whitespace such as newline delimited JSON. A vehicle given
+     * more than once keeps its last price. Rows that cannot be bound or
+     * validated are rejected; malformed JSON ends the run after the rows
+     * read so far.
+     * @param json the prices to write
+     * @return the number of prices created and updated, and the rejected rows
+     * @throws IOException if the input cannot be read
+     */
+    public UpsertReport importPrices(InputStream json) throws IOException {
+        UpsertReport report = new UpsertReport(maxReportedErrors);
+        Map<Long, Price> chunk = new LinkedHashMap<>();
+        Map<Long, Integer> rows = new LinkedHashMap<>();
+        int row = 0;
+        try (MappingIterator<Price> prices = priceReader.readValues(json)) {
+            while (prices.hasNextValue()) {
+                Price price;
+                try {
+                    price = prices.nextValue();
+                } catch (JsonMappingException e) {
+                    report.reject(row++, null, Collections.singletonList(e.getOriginalMessage()));
+                    continue;
+                }
+                List<String> errors = validate(price);
+                if (!errors.isEmpty()) {
+                    report.reject(row++, price.getVehicleId(), errors);
+                    continue;
+                }
+                chunk.put(price.getVehicleId(), price);
+                rows.put(price.getVehicleId(), row++);
+                if (chunk.size() == chunkSize) {
+                    store(chunk, rows, report);
+                    chunk.clear();
+                    rows.clear();
+                }
+            }
+        } catch (JsonParseException e) {
+            report.reject(row, null, Collections.singletonList("Malformed JSON: " + e.getOriginalMessage()));
+        }
+        store(chunk, rows, report);
+        logger.info("Created {} prices, updated {}, rejected {}",
+                report.getCreated(), report.getUpdated(), report.getRejected());
+        return report;
+    }
+
+    private List<String> validate(Price price) {
+        List<String> errors = new ArrayList<>();
+        if (price.getVehicleId() == null) {
+            errors.add("vehicleId: must not be null");
+        }
+        if (!isCurrency(price.getCurrency())) {
+            errors.add("currency: must be an ISO 4217 currency code");
+        }
+        if (price.getPrice() == null) {
+            errors.add("price: must not be null");
+        } else if (price.getPrice().signum() < 0) {
+            errors.add("price: must not be negative");
+        }
+        return errors;
+    }
+
+    /**
+     * Tells whether a code names a currency, in either case; clients read
+     * prices into money amounts and cannot use any other code.
+     */
+    private static boolean isCurrency(String code) {
+        if (code == null) {
+            return false;
+        }
+        try {
+            Currency.getInstance(code.toUpperCase(Locale.ROOT));
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Writes a chunk of valid prices in one transaction, then puts them in
+     * the price table. If the chunk fails, its prices are written one by one
+     * so that only the failing rows are rejected.
+     */
+    private void store(Map<Long, Price> chunk, Map<Long, Integer> rows, UpsertReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            saved(transactionTemplate.execute(status -> write(chunk.values())), report);
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Price import chunk failed, retrying row by row", e);
+        }
+        for (Price price : chunk.values()) {
+            try {
+                saved(transactionTemplate.execute(status ->
+                        write(Collections.singletonList(price))), report);
+            } catch (RuntimeException e) {
+                report.reject(rows.get(price.getVehicleId()), price.getVehicleId(), Collections.singletonList(
+                        NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            }
+        }
+    }
+
+    /**
+     * Puts committed prices in the price table and counts them; a price
+     * read back at version 0 was inserted by this write.
+     */
+    private void saved(List<Price> written, UpsertReport report) {
+        priceTable.savedAll(written);
+        int created = (int) written.stream().filter(price -> price.getVersion() == 0).count();
+        report.written(created, written.size() - created);
+    }
+
+    /**
+     * Updates the prices of the vehicles that have one, inserts the others,
+     * and reads back the rows written with their new versions.
+     */
+    private List<Price> write(Collection<Price> prices) {
+        List<Object[]> updates = new ArrayList<>(prices.size());
+        for (Price price : prices) {
+            updates.add(new Object[] {price.getCurrency(), price.getPrice(), price.getVehicleId()});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE, updates);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                Object[] update = updates.get(i);
+                inserts.add(new Object[] {update[2], update[0], update[1]});
+            }
+        }
+        if (!inserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT, inserts);
+        }
+        List<Long> vehicleIds = new ArrayList<>(prices.size());
+        prices.forEach(price -> vehicleIds.add(price.getVehicleId()));
+        return namedJdbcTemplate.query(SELECT, Collections.singletonMap("ids", vehicleIds), (rs, rowNum) -> {
+            Price written = new Price(rs.getString("currency"), rs.getBigDecimal("price"), rs.getLong("vehicleid"));
+            written.setVersion(rs.getLong("version"));
+            return written;
+        });
+    }
+}
@@ -0,0 +1,36 @@
+package com.udacity.pricing.service;
+
+import java.util.Collection;
+import java.util.List;
+import org.springframework.stereotype.Service;
+
+/**
+ * Implements the price service to look up vehicle prices.
+ */
+@Service
+public class PriceService {
+
+    private final PriceTable priceTable;
+
+    public PriceService(PriceTable priceTable) {
+        this.priceTable = priceTable;
+    }
+
+    /**
+     * Gets the price of one vehicle from the in-memory price table.
+     * @param vehicleId ID number of the vehicle for which to get the price
+     * @return the price with its encodings, or null if the vehicle has none
+     */
+    public EncodedPrice getPrice(long vehicleId) {
+        return priceTable.get(vehicleId);
+    }
+
+    /**
+     * Gets the prices of several vehicles from the in-memory price table.
+     * @param vehicleIds ID numbers of the vehicles for which to get prices
+     * @return the prices with their encodings; vehicles without a price are left out
+     */
+    public List<EncodedPrice> getPrices(Collection<Long> vehicleIds) {
+        return priceTable.getAll(vehicleIds);
+    }
+}
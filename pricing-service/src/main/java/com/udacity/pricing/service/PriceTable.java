@@ -0,0 +1,277 @@
+package com.udacity.pricing.service;
+
+import com.udacity.pricing.entity.Price;
+import com.udacity.pricing.repository.PriceRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.rest.core.annotation.HandleAfterCreate;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Holds every price in memory, so that lookups need neither a query nor
+ * a transaction. The prices are loaded from the PriceRepository at startup
+ * into an immutable snapshot keyed by primitive vehicle IDs, together with
+ * their encodings, so that a lookup neither allocates nor serializes.
+ * Writes made through the REST repository build a new snapshot and swap it
+ * in atomically; readers never lock and always see a complete snapshot.
+ * Prices written in bulk by the PriceImportService are merged in with a
+ * single swap.
+ * Every write raises the version of the table, and is published as a
+ * PriceChange event carrying that version. Write events of concurrent
+ * saves may arrive out of order, so a price older than the one held, by
+ * the version of the price entity, is ignored.
+ */
+@Component
+@RepositoryEventHandler
+public class PriceTable implements SmartInitializingSingleton {
+
+    private final PriceRepository repository;
+    private final ApplicationEventPublisher events;
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    public PriceTable(PriceRepository repository, ApplicationEventPublisher events) {
+        this.repository = repository;
+        this.events = events;
+    }
+
+    /**
+     * Loads the prices once the seed data is in the database.
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        reload();
+    }
+
+    /**
+     * Replaces the snapshot with the current contents of the repository.
+     */
+    public synchronized void reload() {
+        List<Price> prices = new ArrayList<>();
+        repository.findAll().forEach(prices::add);
+        snapshot.set(Snapshot.of(prices, snapshot.get().version() + 1));
+    }
+
+    /**
+     * Gets the price of a vehicle.
+     * @param vehicleId ID number of the vehicle
+     * @return the price with its encodings, or null if the vehicle has none
+     */
+    public EncodedPrice get(long vehicleId) {
+        return snapshot.get().get(vehicleId);
+    }
+
+    /**
+     * Gets the prices of several vehicles from one snapshot.
+     * @param vehicleIds ID numbers of the vehicles
+     * @return the prices with their encodings, in the order of the vehicle
+     *   IDs; vehicles without a price are left out
+     */
+    public List<EncodedPrice> getAll(Collection<Long> vehicleIds) {
+        Snapshot current = snapshot.get();
+        List<EncodedPrice> prices = new ArrayList<>(vehicleIds.size());
+        for (Long vehicleId : vehicleIds) {
+            EncodedPrice price = vehicleId == null ? null : current.get(vehicleId);
+            if (price != null) {
+                prices.add(price);
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * @return the number of prices held
+     */
+    public int size() {
+        return snapshot.get().size();
+    }
+
+    /**
+     * @return the current snapshot, to read several prices and the version
+     *   they are at consistently
+     */
+    Snapshot snapshot() {
+        return snapshot.get();
+    }
+
+    @HandleAfterCreate
+    @HandleAfterSave
+    public void saved(Price price) {
+        EncodedPrice encoded;
+        synchronized (this) {
+            Snapshot current = snapshot.get();
+            if (isOvertaken(price, current)) {
+                return;
+            }
+            encoded = new EncodedPrice(price, current.version() + 1);
+            snapshot.set(current.with(encoded));
+        }
+        events.publishEvent(PriceChange.saved(encoded));
+    }
+
+    /**
+     * Puts prices written in bulk into the table as one new snapshot, at one
+     * new version, and publishes a change for each. Prices older than the
+     * ones held are left out.
+     * @param prices the prices as written to the database, one per vehicle
+     */
+    public void savedAll(Collection<Price> prices) {
+        EncodedPrice[] encoded;
+        synchronized (this) {
+            Snapshot current = snapshot.get();
+            long version = current.version() + 1;
+            encoded = prices.stream()
+                    .filter(price -> !isOvertaken(price, current))
+                    .map(price -> new EncodedPrice(price, version))
+                    .sorted((a, b) -> Long.compare(a.getVehicleId(), b.getVehicleId()))
+                    .toArray(EncodedPrice[]::new);
+            if (encoded.length == 0) {
+                return;
+            }
+            snapshot.set(current.withAll(encoded, version));
+        }
+        for (EncodedPrice price : encoded) {
+            events.publishEvent(PriceChange.saved(price));
+        }
+    }
+
+    /**
+     * Tells whether the table already holds a later version of a price, as
+     * when the events of two saves of a vehicle arrive out of order.
+     */
+    private static boolean isOvertaken(Price price, Snapshot current) {
+        EncodedPrice held = current.get(price.getVehicleId());
+        return held != null && versionOf(held.getPrice()) > versionOf(price);
+    }
+
+    private static long versionOf(Price price) {
+        return price.getVersion() == null ? 0 : price.getVersion();
+    }
+
+    @HandleAfterDelete
+    public void deleted(Price price) {
+        long version;
+        synchronized (this) {
+            Snapshot current = snapshot.get();
+            version = current.version() + 1;
+            snapshot.set(current.without(price.getVehicleId(), version));
+        }
+        events.publishEvent(PriceChange.deleted(price.getVehicleId(), version));
+    }
+
+    /**
+     * Immutable set of prices at one version of the table, kept as vehicle
+     * IDs in ascending order and the encoded prices at the same positions.
+     * A lookup is a binary search over a long array, without boxing the ID
+     * or hashing.
+     */
+    static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new long[0], new EncodedPrice[0], 0);
+
+        private final long[] vehicleIds;
+        private final EncodedPrice[] prices;
+        private final long version;
+
+        private Snapshot(long[] vehicleIds, EncodedPrice[] prices, long version) {
+            this.vehicleIds = vehicleIds;
+            this.prices = prices;
+            this.version = version;
+        }
+
+        static Snapshot of(Collection<Price> prices, long version) {
+            EncodedPrice[] sorted = prices.stream()
+                    .map(price -> new EncodedPrice(price, version))
+                    .sorted((a, b) -> Long.compare(a.getVehicleId(), b.getVehicleId()))
+                    .toArray(EncodedPrice[]::new);
+            long[] vehicleIds = new long[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                vehicleIds[i] = sorted[i].getVehicleId();
+            }
+            return new Snapshot(vehicleIds, sorted, version);
+        }
+
+        EncodedPrice get(long vehicleId) {
+            int index = Arrays.binarySearch(vehicleIds, vehicleId);
+            return index >= 0 ? prices[index] : null;
+        }
+
+        int size() {
+            return vehicleIds.length;
+        }
+
+        long version() {
+            return version;
+        }
+
+        List<EncodedPrice> prices() {
+            return Collections.unmodifiableList(Arrays.asList(prices));
+        }
+
+        Snapshot with(EncodedPrice price) {
+            int index = Arrays.binarySearch(vehicleIds, price.getVehicleId());
+            if (index >= 0) {
+                EncodedPrice[] replaced = prices.clone();
+                replaced[index] = price;
+                return new Snapshot(vehicleIds, replaced, price.getVersion());
+            }
+            int insertAt = -index - 1;
+            long[] ids = new long[vehicleIds.length + 1];
+            EncodedPrice[] added = new EncodedPrice[prices.length + 1];
+            System.arraycopy(vehicleIds, 0, ids, 0, insertAt);
+            System.arraycopy(prices, 0, added, 0, insertAt);
+            ids[insertAt] = price.getVehicleId();
+            added[insertAt] = price;
+            System.arraycopy(vehicleIds, insertAt, ids, insertAt + 1, vehicleIds.length - insertAt);
+            System.arraycopy(prices, insertAt, added, insertAt + 1, prices.length - insertAt);
+            return new Snapshot(ids, added, price.getVersion());
+        }
+
+        /**
+         * Merges prices sorted by vehicle ID, with no ID given twice, into a
+         * new snapshot in one pass.
+         */
+        Snapshot withAll(EncodedPrice[] sorted, long version) {
+            long[] ids = new long[vehicleIds.length + sorted.length];
+            EncodedPrice[] merged = new EncodedPrice[ids.length];
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < vehicleIds.length || j < sorted.length) {
+                if (j == sorted.length || (i < vehicleIds.length && vehicleIds[i] < sorted[j].getVehicleId())) {
+                    ids[n] = vehicleIds[i];
+                    merged[n++] = prices[i++];
+                } else {
+                    if (i < vehicleIds.length && vehicleIds[i] == sorted[j].getVehicleId()) {
+                        i++;
+                    }
+                    ids[n] = sorted[j].getVehicleId();
+                    merged[n++] = sorted[j++];
+                }
+            }
+            return new Snapshot(Arrays.copyOf(ids, n), Arrays.copyOf(merged, n), version);
+        }
+
+        Snapshot without(long vehicleId, long version) {
+            int index = Arrays.binarySearch(vehicleIds, vehicleId);
+            if (index < 0) {
+                return new Snapshot(vehicleIds, prices, version);
+            }
+            long[] ids = new long[vehicleIds.length - 1];
+            EncodedPrice[] kept = new EncodedPrice[prices.length - 1];
+            System.arraycopy(vehicleIds, 0, ids, 0, index);
+            System.arraycopy(prices, 0, kept, 0, index);
+            System.arraycopy(vehicleIds, index + 1, ids, index, ids.length - index);
+            System.arraycopy(prices, index + 1, kept, index, kept.length - index);
+            return new Snapshot(ids, kept, version);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.udacity.pricing.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reports on a bulk price upsert. Prices created and prices updated are
+ * counted apart, one per write: a vehicle listed twice in the same chunk
+ * is written once, with its last price. Rejected rows are identified by
+ * their position and, when it could be read, their vehicle ID; only the
+ * first maxErrors of them are listed.
+ */
+public class UpsertReport {
+
+    private final int maxErrors;
+    private int created;
+    private int updated;
+    private int rejected;
+    private final List<Rejection> errors = new ArrayList<>();
+
+    UpsertReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<Rejection> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    void written(int created, int updated) {
+        this.created += created;
+        this.updated += updated;
+    }
+
+    void reject(int row, Long vehicleId, List<String> messages) {
+        rejected++;
+        if (errors.size() < maxErrors) {
+            errors.add(new Rejection(row, vehicleId, messages));
+        }
+    }
+
+    /**
+     * Declares why the price in one row of the input was not written.
+     */
+    public static class Rejection {
+
+        private final int row;
+        private final Long vehicleId;
+        private final List<String> errors;
+
+        Rejection(int row, Long vehicleId, List<String> errors) {
+            this.row = row;
+            this.vehicleId = vehicleId;
+            this.errors = errors;
+        }
+
+        /**
+         * @return the position of the row in the input, starting at 0
+         */
+        public int getRow() {
+            return row;
+        }
+
+        /**
+         * @return the vehicle ID of the row, or null if it could not be read
+         */
+        public Long getVehicleId() {
+            return vehicleId;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -1,11 +1,11 @@
-insert into price (vehicleid,currency,price) VALUES (1,'inr',9999999);
-insert into price (vehicleid,currency,price) VALUES (2,'inr',2222222);
-insert into price (vehicleid,currency,price) VALUES (3,'inr',2233332);
-insert into price (vehicleid,currency,price) VALUES (4,'inr',4444444);
-insert into price (vehicleid,currency,price) VALUES (5,'inr',5555555);
-insert into price (vehicleid,currency,price) VALUES (6,'inr',6655665);
-insert into price (vehicleid,currency,price) VALUES (7,'inr',7777777);
-insert into price (vehicleid,currency,price) VALUES (8,'inr',8888888);
-insert into price (vehicleid,currency,price) VALUES (9,'inr',9999999);
-insert into price (vehicleid,currency,price) VALUES (10,'inr',101010);
-insert into price (vehicleid,currency,price) VALUES (11,'inr',111111);
\ No newline at end of file
+insert into price (vehicleid,currency,price,version) VALUES (1,'inr',9999999,0);
+insert into price (vehicleid,currency,price,version) VALUES (2,'inr',2222222,0);
+insert into price (vehicleid,currency,price,version) VALUES (3,'inr',2233332,0);
+insert into price (vehicleid,currency,price,version) VALUES (4,'inr',4444444,0);
+insert into price (vehicleid,currency,price,version) VALUES (5,'inr',5555555,0);
+insert into price (vehicleid,currency,price,version) VALUES (6,'inr',6655665,0);
+insert into price (vehicleid,currency,price,version) VALUES (7,'inr',7777777,0);
+insert into price (vehicleid,currency,price,version) VALUES (8,'inr',8888888,0);
+insert into price (vehicleid,currency,price,version) VALUES (9,'inr',9999999,0);
+insert into price (vehicleid,currency,price,version) VALUES (10,'inr',101010,0);
+insert into price (vehicleid,currency,price,version) VALUES (11,'inr',111111,0);
\ No newline at end of file
@@ -7,10 +7,31 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.web.client.TestRestTemplate;
 import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.udacity.pricing.entity.Price;
+import com.udacity.pricing.service.PriceCodec;
+import com.udacity.pricing.service.PriceTable;
+import java.math.BigDecimal;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
 @AutoConfigureMockMvc
@@ -19,6 +40,9 @@ public class PricingServiceApplicationTests {
 	@Autowired
 	private TestRestTemplate testRestTemplate;
 
+	@Autowired
+	private PriceTable priceTable;
+
 	@LocalServerPort
 	private int port;
 
@@ -41,4 +65,224 @@ public class PricingServiceApplicationTests {
 		assert(responseEntity.getStatusCode().equals(HttpStatus.OK));
 	}
 
+	@Test
+	public void testGetPricesInBatch() {
+		ResponseEntity<Map> responseEntity = this.testRestTemplate.postForEntity(
+				"http://localhost:"+port+"/prices/batch", Arrays.asList(1L, 2L, 9999L), Map.class);
+		assert(responseEntity.getStatusCode().equals(HttpStatus.OK));
+		assert(responseEntity.getBody().size() == 2);
+		assert(responseEntity.getBody().containsKey("1"));
+	}
+
+	@Test
+	public void testGetPriceFromTable() {
+		ResponseEntity<Map> responseEntity = this.testRestTemplate.getForEntity(
+				"http://localhost:"+port+"/price-table/1", Map.class);
+		assert(responseEntity.getStatusCode().equals(HttpStatus.OK));
+		assert(responseEntity.getBody().get("vehicleId").equals(1));
+		assert(!responseEntity.getBody().containsKey("_links"));
+
+		responseEntity = this.testRestTemplate.getForEntity(
+				"http://localhost:"+port+"/price-table/9999", Map.class);
+		assert(responseEntity.getStatusCode().equals(HttpStatus.NOT_FOUND));
+	}
+
+	@Test
+	public void testPriceTableFollowsWrites() {
+		Map<String, Object> price = new HashMap<>();
+		price.put("currency", "usd");
+		price.put("price", 12345);
+		this.testRestTemplate.put("http://localhost:"+port+"/prices/42", price);
+
+		ResponseEntity<Map> responseEntity = this.testRestTemplate.getForEntity(
+				"http://localhost:"+port+"/price-table/42", Map.class);
+		assert(responseEntity.getStatusCode().equals(HttpStatus.OK));
+		assert(responseEntity.getBody().get("price").equals(12345));
+
+		this.testRestTemplate.delete("http://localhost:"+port+"/prices/42");
+		responseEntity = this.testRestTemplate.getForEntity(
+				"http://localhost:"+port+"/price-table/42", Map.class);
+		assert(responseEntity.getStatusCode().equals(HttpStatus.NOT_FOUND));
+	}
+
+	@Test
+	public void testGetBinaryPrices() throws IOException {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setAccept(Arrays.asList(PriceCodec.BINARY));
+
+		ResponseEntity<byte[]> responseEntity = this.testRestTemplate.exchange(
+				"http://localhost:"+port+"/price-table/2", HttpMethod.GET,
+				new HttpEntity<>(headers), byte[].class);
+		assert(responseEntity.getStatusCode().equals(HttpStatus.OK));
+		assert(PriceCodec.BINARY.isCompatibleWith(responseEntity.getHeaders().getContentType()));
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(responseEntity.getBody()));
+		assert(in.readLong() == 2L);
+		assert(in.readUTF().equals("inr"));
+
+		responseEntity = this.testRestTemplate.exchange(
+				"http://localhost:"+port+"/prices/batch", HttpMethod.POST,
+				new HttpEntity<>(Arrays.asList(1L, 2L, 9999L), headers), byte[].class);
+		assert(responseEntity.getStatusCode().equals(HttpStatus.OK));
+		in = new DataInputStream(new ByteArrayInputStream(responseEntity.getBody()));
+		assert(in.readInt() == 2);
+		assert(in.readLong() == 1L);
+	}
+
+	@Test
+	public void testConditionalGetPrice() {
+		Map<String, Object> price = new HashMap<>();
+		price.put("currency", "usd");
+		price.put("price", 500);
+		this.testRestTemplate.put("http://localhost:"+port+"/prices/44", price);
+		try {
+			ResponseEntity<String> responseEntity = this.testRestTemplate.getForEntity(
+					"http://localhost:"+port+"/price-table/44", String.class);
+			String etag = responseEntity.getHeaders().getETag();
+			assert(etag != null && etag.startsWith("\"0-"));
+
+			HttpHeaders headers = new HttpHeaders();
+			headers.setIfNoneMatch(etag);
+			responseEntity = this.testRestTemplate.exchange(
+					"http://localhost:"+port+"/price-table/44", HttpMethod.GET,
+					new HttpEntity<>(headers), String.class);
+			assert(responseEntity.getStatusCode().equals(HttpStatus.NOT_MODIFIED));
+			assert(responseEntity.getBody() == null);
+
+			headers.setAccept(Arrays.asList(PriceCodec.BINARY));
+			responseEntity = this.testRestTemplate.exchange(
+					"http://localhost:"+port+"/price-table/44", HttpMethod.GET,
+					new HttpEntity<>(headers), String.class);
+			assert(responseEntity.getStatusCode().equals(HttpStatus.OK));
+
+			price.put("price", 600);
+			this.testRestTemplate.put("http://localhost:"+port+"/prices/44", price);
+			responseEntity = this.testRestTemplate.exchange(
+					"http://localhost:"+port+"/price-table/44", HttpMethod.GET,
+					new HttpEntity<>(headers), String.class);
+			assert(responseEntity.getStatusCode().equals(HttpStatus.OK));
+			assert(responseEntity.getHeaders().getETag().startsWith("\"1-"));
+		} finally {
+			this.testRestTemplate.delete("http://localhost:"+port+"/prices/44");
+		}
+	}
+
+	@Test
+	public void testPostExistingPriceUpdatesIt() {
+		Map<String, Object> price = new HashMap<>();
+		price.put("vehicleId", 45);
+		price.put("currency", "usd");
+		price.put("price", 100);
+		try {
+			ResponseEntity<String> created = this.testRestTemplate.postForEntity(
+					"http://localhost:"+port+"/prices", price, String.class);
+			assert(created.getStatusCode().equals(HttpStatus.CREATED));
+
+			price.put("price", 200);
+			created = this.testRestTemplate.postForEntity(
+					"http://localhost:"+port+"/prices", price, String.class);
+			assert(created.getStatusCode().equals(HttpStatus.CREATED));
+
+			ResponseEntity<Map> responseEntity = this.testRestTemplate.getForEntity(
+					"http://localhost:"+port+"/price-table/45", Map.class);
+			assert(responseEntity.getBody().get("price").equals(200));
+			assert(responseEntity.getHeaders().getETag().startsWith("\"1-"));
+		} finally {
+			this.testRestTemplate.delete("http://localhost:"+port+"/prices/45");
+		}
+	}
+
+	@Test
+	public void testPriceTableIgnoresOvertakenWrites() {
+		Map<String, Object> price = new HashMap<>();
+		price.put("currency", "usd");
+		price.put("price", 100);
+		try {
+			this.testRestTemplate.put("http://localhost:"+port+"/prices/46", price);
+			price.put("price", 200);
+			this.testRestTemplate.put("http://localhost:"+port+"/prices/46", price);
+
+			Price stale = new Price("usd", new BigDecimal(100), 46L);
+			stale.setVersion(0L);
+			priceTable.saved(stale);
+
+			ResponseEntity<Map> responseEntity = this.testRestTemplate.getForEntity(
+					"http://localhost:"+port+"/price-table/46", Map.class);
+			assert(responseEntity.getBody().get("price").equals(200));
+			assert(responseEntity.getHeaders().getETag().startsWith("\"1-"));
+		} finally {
+			this.testRestTemplate.delete("http://localhost:"+port+"/prices/46");
+		}
+	}
+
+	@Test
+	public void testBulkUpsertPrices() {
+		StringBuilder ndjson = new StringBuilder("{\"vehicleId\":6,\"currency\":\"usd\",\"price\":600}\n");
+		for (long id = 20000; id < 22500; id++) {
+			ndjson.append("{\"vehicleId\":").append(id).append(",\"currency\":\"eur\",\"price\":1000}\n");
+		}
+		ndjson.append("{\"vehicleId\":6,\"currency\":\"usd\",\"price\":650}\n");
+		ndjson.append("{\"vehicleId\":6,\"currency\":\"usd\",\"price\":700}\n");
+		ndjson.append("{\"vehicleId\":7,\"currency\":\"dollars\",\"price\":-1}\n");
+		ndjson.append("{\"vehicleId\":8,\"currency\":\"abc\",\"price\":1}\n");
+		ndjson.append("{\"vehicleId\":\"seven\",\"currency\":\"usd\",\"price\":1}\n");
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(MediaType.valueOf("application/x-ndjson"));
+
+		ResponseEntity<Map> responseEntity = this.testRestTemplate.postForEntity(
+				"http://localhost:"+port+"/prices/bulk", new HttpEntity<>(ndjson.toString(), headers), Map.class);
+		assert(responseEntity.getStatusCode().equals(HttpStatus.OK));
+		assert(responseEntity.getBody().get("created").equals(2500));
+		assert(responseEntity.getBody().get("updated").equals(2));
+		assert(responseEntity.getBody().get("rejected").equals(3));
+		assert(((List<?>) responseEntity.getBody().get("errors")).size() == 3);
+
+		responseEntity = this.testRestTemplate.getForEntity(
+				"http://localhost:"+port+"/price-table/6", Map.class);
+		assert(responseEntity.getBody().get("price").equals(700.0));
+		assert(responseEntity.getHeaders().getETag().startsWith("\"2-"));
+		responseEntity = this.testRestTemplate.getForEntity(
+				"http://localhost:"+port+"/price-table/22499", Map.class);
+		assert(responseEntity.getBody().get("currency").equals("eur"));
+		responseEntity = this.testRestTemplate.getForEntity(
+				"http://localhost:"+port+"/price-table/7", Map.class);
+		assert(responseEntity.getBody().get("currency").equals("inr"));
+		responseEntity = this.testRestTemplate.getForEntity(
+				"http://localhost:"+port+"/price-table/8", Map.class);
+		assert(responseEntity.getBody().get("currency").equals("inr"));
+	}
+
+	@Test
+	public void testPriceChangeFeed() throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL(
+				"http://localhost:"+port+"/price-table/changes").openConnection();
+		connection.setRequestProperty("Accept", "text/event-stream");
+		connection.setReadTimeout(5000);
+		try (BufferedReader events = new BufferedReader(new InputStreamReader(
+				connection.getInputStream(), StandardCharsets.UTF_8))) {
+			skipTo(events, "event:ready");
+			Map<String, Object> price = new HashMap<>();
+			price.put("currency", "usd");
+			price.put("price", 777);
+			this.testRestTemplate.put("http://localhost:"+port+"/prices/43", price);
+
+			skipTo(events, "event:price");
+			String data = skipTo(events, "data:");
+			assert(data.contains("\"vehicleId\":43"));
+			assert(data.contains("\"price\":777"));
+			assert(data.contains("\"deleted\":false"));
+		} finally {
+			connection.disconnect();
+			this.testRestTemplate.delete("http://localhost:"+port+"/prices/43");
+		}
+	}
+
+	private static String skipTo(BufferedReader events, String prefix) throws IOException {
+		String line;
+		do {
+			line = events.readLine();
+		} while (line != null && !line.startsWith(prefix));
+		assert(line != null);
+		return line;
+	}
+
 }
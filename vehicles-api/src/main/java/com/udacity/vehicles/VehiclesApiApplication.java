@@ -1,12 +1,14 @@
 package com.udacity.vehicles;
 
+import com.udacity.vehicles.client.WebClientFactory;
+import com.udacity.vehicles.client.prices.PriceReplica;
 import com.udacity.vehicles.domain.manufacturer.Manufacturer;
 import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
-import org.modelmapper.ModelMapper;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -40,29 +42,42 @@ public class VehiclesApiApplication {
         };
     }
 
-    @Bean
-    public ModelMapper modelMapper() {
-        return new ModelMapper();
-    }
-
     /**
      * Web Client for the maps (location) API
+     * @param factory creates the client with its connection pool
      * @param endpoint where to communicate for the maps API
      * @return created maps endpoint
      */
     @Bean(name="maps")
-    public WebClient webClientMaps(@Value("${maps.endpoint}") String endpoint) {
-        return WebClient.create(endpoint);
+    public WebClient webClientMaps(WebClientFactory factory, @Value("${maps.endpoint}") String endpoint) {
+        return factory.create("maps", endpoint);
     }
 
     /**
      * Web Client for the pricing API
+     * @param factory creates the client with its connection pool
      * @param endpoint where to communicate for the pricing API
      * @return created pricing endpoint
      */
     @Bean(name="pricing")
-    public WebClient webClientPricing(@Value("${pricing.endpoint}") String endpoint) {
-        return WebClient.create(endpoint);
+    public WebClient webClientPricing(WebClientFactory factory, @Value("${pricing.endpoint}") String endpoint) {
+        return factory.create("pricing", endpoint);
+    }
+
+    /**
+     * Local replica of the prices, kept up to date from the change feed of
+     * the pricing API over a connection of its own, whose read timeout only
+     * has to outlast the heartbeats of the feed.
+     * @param factory creates the client with its connection pool
+     * @param endpoint where to communicate for the pricing API
+     * @param retryDelayMs how long to wait before reconnecting to the feed
+     * @return the replica, subscribed to the feed as soon as it is created
+     */
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "pricing.replica.enabled", havingValue = "true")
+    public PriceReplica priceReplica(WebClientFactory factory, @Value("${pricing.endpoint}") String endpoint,
+            @Value("${pricing.replica.retry-delay-ms:1000}") long retryDelayMs) {
+        return new PriceReplica(factory.create("pricing.replica", endpoint), retryDelayMs);
     }
 
 }
@@ -2,11 +2,21 @@ package com.udacity.vehicles.api;
 
 
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.linkTo;
-import static org.springframework.hateoas.mvc.ControllerLinkBuilder.methodOn;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.udacity.vehicles.domain.Money;
 import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarFilter;
+import com.udacity.vehicles.service.CarImportService;
 import com.udacity.vehicles.service.CarNotFoundException;
 import com.udacity.vehicles.service.CarService;
+import com.udacity.vehicles.service.ImportReport;
+import com.udacity.vehicles.service.PriceRange;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -14,8 +24,19 @@ import java.util.stream.Collectors;
 import javax.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.PagedResources;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.Resources;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -24,36 +45,190 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * Implements a REST-based controller for the Vehicles API.
  */
 @RestController
 @RequestMapping("/cars")
+@Profile("!reactive")
 class CarController {
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+
+    private static final String DEFAULT_CURRENCY = "USD";
+    private static final String PRICE = "price";
+
     private final CarService carService;
+    private final CarImportService importService;
     private final CarResourceAssembler assembler;
+    private final ObjectWriter carWriter;
+    private final int maxCursorSize;
 
     Logger logger = LoggerFactory.getLogger(CarController.class);
 
-    CarController(CarService carService, CarResourceAssembler assembler) {
+    CarController(CarService carService, CarImportService importService,
+            CarResourceAssembler assembler, ObjectMapper objectMapper,
+            @Value("${vehicles.cursor.max-size:100}") int maxCursorSize) {
         this.carService = carService;
+        this.importService = importService;
         this.assembler = assembler;
+        this.carWriter = objectMapper.writerFor(Car.class);
+        this.maxCursorSize = maxCursorSize;
     }
 
     /**
-     * Creates a list to store any vehicles.
+     * Creates a list to store any vehicles, optionally only those matching a
+     * filter and priced within a range, e.g.
+     * ?manufacturer=101&maxMileage=50000&minPrice=10000&sort=price,desc
      *
+     * @param filter the attributes of the vehicles to list
+     * @param minPrice the lowest price of the vehicles to list, if any
+     * @param maxPrice the highest price of the vehicles to list, if any
+     * @param currency the currency of the price bounds, USD if not given
+     * @param sort the order of the vehicles, by price or any stored property;
+     *   any other property is rejected with 400
      * @return list of vehicles
      */
     @GetMapping
-    Resources<Resource<Car>> list() {
-        List<Resource<Car>> resources = carService.list().stream().map(assembler::toResource)
+    Resources<Resource<Car>> list(CarFilter filter,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) String currency, Sort sort) {
+        checkSort(sort);
+        PriceRange range = PriceRange.between(money(currency, minPrice), money(currency, maxPrice));
+        List<Resource<Car>> resources = carService.list(filter, range, sort).stream()
+                .map(assembler::toResource)
                 .collect(Collectors.toList());
-        return new Resources<>(resources,
-                linkTo(methodOn(CarController.class).list()).withSelfRel());
+        return new Resources<>(resources, linkTo(CarController.class).withSelfRel());
+    }
+
+    /**
+     * Gets one page of the vehicles matching a filter, selected by page number.
+     * Pages are cut by the database, before prices are known, so price
+     * bounds and ordering by price are rejected with 400 rather than
+     * applied to one page only.
+     *
+     * @param filter the attributes of the vehicles to list
+     * @param minPrice must not be given
+     * @param maxPrice must not be given
+     * @param pageable page number, size and sort order, e.g. ?page=2&size=20&sort=modifiedAt,desc
+     * @param pagedAssembler builds the first, previous, next and last page links
+     * @param after must not be given
+     * @param before must not be given
+     * @return the requested page of vehicles
+     */
+    @GetMapping(params = "page")
+    PagedResources<Resource<Car>> listPage(CarFilter filter,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice, Pageable pageable,
+            PagedResourcesAssembler<Car> pagedAssembler,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Long before) {
+        if (after != null || before != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Give either a page number or a cursor");
+        }
+        if (minPrice != null || maxPrice != null || pageable.getSort().getOrderFor(PRICE) != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Prices cannot be filtered or sorted by page; list without page instead");
+        }
+        checkSort(pageable.getSort());
+        return pagedAssembler.toResource(carService.list(filter, pageable), assembler);
+    }
+
+    /**
+     * Gets the vehicles following a known vehicle ID, in ID order. Unlike
+     * page numbers this cursor stays cheap deep into the fleet. A cursor
+     * cannot be combined with a page number or with the other cursor.
+     *
+     * @param after the ID number of the last vehicle already seen
+     * @param before must not be given
+     * @param size the maximum number of vehicles to get, from 1 to the
+     *   configured maximum
+     * @return the next vehicles, with links to the previous and next ones
+     */
+    @GetMapping(params = {"after", "!page"})
+    Resources<Resource<Car>> listAfter(@RequestParam Long after,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int size) {
+        if (before != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Give either after or before");
+        }
+        checkCursorSize(size);
+        Slice<Car> slice = carService.listAfter(after, size);
+        return assembler.toResources(slice.getContent(), size, true, slice.hasNext());
+    }
+
+    /**
+     * Gets the vehicles preceding a known vehicle ID, in ID order.
+     *
+     * @param before the ID number of the first vehicle already seen
+     * @param size the maximum number of vehicles to get, from 1 to the
+     *   configured maximum
+     * @return the previous vehicles, with links to the previous and next ones
+     */
+    @GetMapping(params = {"before", "!page", "!after"})
+    Resources<Resource<Car>> listBefore(@RequestParam Long before,
+            @RequestParam(defaultValue = "20") int size) {
+        checkCursorSize(size);
+        Slice<Car> slice = carService.listBefore(before, size);
+        return assembler.toResources(slice.getContent(), size, slice.hasNext(), true);
+    }
+
+    private void checkCursorSize(int size) {
+        if (size < 1 || size > maxCursorSize) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "size must be between 1 and " + maxCursorSize);
+        }
+    }
+
+    /**
+     * Gets the vehicles within a radius of a point, nearest first.
+     *
+     * @param lat the latitude of the point
+     * @param lon the longitude of the point
+     * @param radiusKm the radius in kilometers, 5 if not given
+     * @return the vehicles within the radius
+     */
+    @GetMapping("/near")
+    Resources<Resource<Car>> listNear(@RequestParam double lat, @RequestParam double lon,
+            @RequestParam(defaultValue = "5") double radiusKm) {
+        if (!(Math.abs(lat) <= 90 && Math.abs(lon) <= 180 && radiusKm > 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid point or radius");
+        }
+        List<Resource<Car>> resources = carService.listNear(lat, lon, radiusKm).stream()
+                .map(assembler::toResource)
+                .collect(Collectors.toList());
+        return new Resources<>(resources, linkTo(CarController.class).withRel("cars"));
+    }
+
+    /**
+     * Streams all vehicles as newline delimited JSON, one vehicle per line.
+     * Vehicles are written as soon as their chunk has been enriched, so the
+     * first bytes arrive without waiting for the whole fleet. The response
+     * has no time limit, see spring.mvc.async.request-timeout.
+     *
+     * @return the stream of vehicles
+     */
+    @GetMapping(value = "/stream", produces = "application/x-ndjson")
+    ResponseEntity<StreamingResponseBody> stream() {
+        StreamingResponseBody body = out -> carService.stream(cars -> {
+            try {
+                for (Car car : cars) {
+                    out.write(carWriter.writeValueAsBytes(car));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(APPLICATION_NDJSON).body(body);
     }
 
     /**
@@ -82,6 +257,20 @@ class CarController {
         return ResponseEntity.created(new URI(resource.getId().expand().getHref())).body(resource);
     }
 
+    /**
+     * Imports many vehicles at once, given as a JSON array or as newline
+     * delimited JSON. The body is read as it arrives rather than bound as a
+     * whole, and invalid rows are reported instead of failing the request.
+     *
+     * @param body the vehicles to import
+     * @return the number of vehicles imported and the rejected rows
+     * @throws IOException if the body cannot be read
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    ResponseEntity<ImportReport> bulkImport(InputStream body) throws IOException {
+        return ResponseEntity.ok(importService.importCars(body));
+    }
+
     /**
      * Updates the information of a car in the system.
      *
@@ -110,4 +299,47 @@ class CarController {
         carService.delete(id);
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * Rejects ordering by a property that vehicles do not store, which would
+     * otherwise fail in the query. Ordering by price itself is left to the
+     * caller, as only the unpaged listing applies it.
+     *
+     * @param sort the requested order of the vehicles
+     */
+    private static void checkSort(Sort sort) {
+        for (Sort.Order order : sort) {
+            String property = order.getProperty();
+            if (PRICE.equals(property)) {
+                continue;
+            }
+            boolean stored;
+            try {
+                stored = !PRICE.equals(PropertyPath.from(property, Car.class).getSegment());
+            } catch (PropertyReferenceException e) {
+                stored = false;
+            }
+            if (!stored) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cannot sort by " + property);
+            }
+        }
+    }
+
+    /**
+     * Converts a price bound given as a request parameter.
+     *
+     * @param currency the currency code, or null for the default currency
+     * @param amount the amount, or null if there is no bound
+     * @return the price bound, or null if there is none
+     */
+    private static Money money(String currency, BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        try {
+            return Money.of(currency == null ? DEFAULT_CURRENCY : currency, amount);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid price bound", e);
+        }
+    }
 }
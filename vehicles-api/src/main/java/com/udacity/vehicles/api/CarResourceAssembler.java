@@ -1,8 +1,13 @@
 package com.udacity.vehicles.api;
 
 import com.udacity.vehicles.domain.car.Car;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.hateoas.Link;
 import org.springframework.hateoas.Resource;
 import org.springframework.hateoas.ResourceAssembler;
+import org.springframework.hateoas.Resources;
 import org.springframework.stereotype.Component;
 
 import static org.springframework.hateoas.mvc.ControllerLinkBuilder.*;
@@ -17,7 +22,33 @@ public class CarResourceAssembler implements ResourceAssembler<Car, Resource<Car
     public Resource<Car> toResource(Car car) {
         return new Resource<>(car,
                 linkTo(methodOn(CarController.class).get(car.getId())).withSelfRel(),
-                linkTo(methodOn(CarController.class).list()).withRel("cars"));
+                linkTo(CarController.class).withRel("cars"));
 
     }
+
+    /**
+     * Maps a run of cars read by ID cursor, linking to the runs before and after it.
+     *
+     * @param cars the cars, in ID order
+     * @param size the number of cars requested per run
+     * @param hasPrevious whether cars may exist before the first one
+     * @param hasNext whether cars exist after the last one
+     * @return the cars with cursor links
+     */
+    Resources<Resource<Car>> toResources(List<Car> cars, int size, boolean hasPrevious,
+            boolean hasNext) {
+        List<Resource<Car>> resources = cars.stream().map(this::toResource)
+                .collect(Collectors.toList());
+        List<Link> links = new ArrayList<>();
+        if (!cars.isEmpty() && hasPrevious) {
+            links.add(linkTo(methodOn(CarController.class)
+                    .listBefore(cars.get(0).getId(), size)).withRel("prev"));
+        }
+        if (!cars.isEmpty() && hasNext) {
+            links.add(linkTo(methodOn(CarController.class)
+                    .listAfter(cars.get(cars.size() - 1).getId(), null, size)).withRel("next"));
+        }
+        links.add(linkTo(CarController.class).withRel("cars"));
+        return new Resources<>(resources, links);
+    }
 }
@@ -2,6 +2,7 @@ package com.udacity.vehicles.api;
 
 import java.util.List;
 import java.util.stream.Collectors;
+import org.springframework.context.annotation.Profile;
 import org.springframework.hateoas.VndErrors;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -15,6 +16,7 @@ import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExcep
  * Implements the Error controller related to any errors handled by the Vehicles API
  */
 @ControllerAdvice
+@Profile("!reactive")
 public class ErrorController extends ResponseEntityExceptionHandler {
 
     private static final String DEFAULT_VALIDATION_FAILED_MESSAGE = "Validation failed";
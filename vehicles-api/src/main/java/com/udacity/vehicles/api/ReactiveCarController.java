@@ -0,0 +1,94 @@
+package com.udacity.vehicles.api;
+
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.service.ReactiveCarService;
+import javax.validation.Valid;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements the /cars API on WebFlux, active with the "reactive" profile in
+ * place of the CarController. Cars are returned as plain JSON, without
+ * hypermedia links.
+ */
+@RestController
+@RequestMapping("/cars")
+@Profile("reactive")
+class ReactiveCarController {
+
+    private final ReactiveCarService carService;
+
+    ReactiveCarController(ReactiveCarService carService) {
+        this.carService = carService;
+    }
+
+    /**
+     * Creates a list to store any vehicles.
+     *
+     * @return list of vehicles
+     */
+    @GetMapping
+    Flux<Car> list() {
+        return carService.list();
+    }
+
+    /**
+     * Gets information of a specific car by ID.
+     *
+     * @param id the id number of the given vehicle
+     * @return all information for the requested vehicle
+     */
+    @GetMapping("/{id}")
+    Mono<Car> get(@PathVariable Long id) {
+        return carService.findById(id);
+    }
+
+    /**
+     * Posts information to create a new vehicle in the system.
+     *
+     * @param car A new vehicle to add to the system.
+     * @param uriBuilder builds the location of the new vehicle
+     * @return response that the new vehicle was added to the system
+     */
+    @PostMapping
+    Mono<ResponseEntity<Car>> post(@Valid @RequestBody Car car, UriComponentsBuilder uriBuilder) {
+        return carService.save(car).map(saved -> ResponseEntity
+                .created(uriBuilder.path("/cars/{id}").buildAndExpand(saved.getId()).toUri())
+                .body(saved));
+    }
+
+    /**
+     * Updates the information of a car in the system.
+     *
+     * @param id The ID number for which to update vehicle information.
+     * @param car The updated information about the related vehicle.
+     * @return the updated vehicle
+     */
+    @PutMapping("/{id}")
+    Mono<Car> put(@PathVariable Long id, @Valid @RequestBody Car car) {
+        car.setId(id);
+        return carService.save(car);
+    }
+
+    /**
+     * Removes a vehicle from the system.
+     *
+     * @param id The ID number of the vehicle to remove.
+     * @return response that the related vehicle is no longer in the system
+     */
+    @DeleteMapping("/{id}")
+    Mono<ResponseEntity<Void>> delete(@PathVariable Long id) {
+        return carService.delete(id).then(Mono.just(ResponseEntity.noContent().<Void>build()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.udacity.vehicles.api;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+/**
+ * Implements the Error controller for the reactive variant of the Vehicles
+ * API, answering validation errors like the ErrorController does.
+ */
+@ControllerAdvice
+@Profile("reactive")
+public class ReactiveErrorController {
+
+    private static final String DEFAULT_VALIDATION_FAILED_MESSAGE = "Validation failed";
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    ResponseEntity<ApiError> handleBindException(WebExchangeBindException ex) {
+        List<String> errors = ex.getFieldErrors()
+                .stream()
+                .map(error -> error.getField() + ": " + error.getDefaultMessage()).collect(
+                        Collectors.toList());
+
+        return ResponseEntity.badRequest()
+                .body(new ApiError(DEFAULT_VALIDATION_FAILED_MESSAGE, errors));
+    }
+}
@@ -0,0 +1,36 @@
+package com.udacity.vehicles.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Splits the keys of a bulk lookup into the chunks sent per request.
+ */
+public final class Batches {
+
+    private Batches() {
+    }
+
+    /**
+     * Splits the given items into chunks of at most batchSize, keeping their order.
+     * @param items the items to split
+     * @param batchSize the maximum number of items per chunk
+     * @return the chunks, in order
+     */
+    public static <T> List<List<T>> partition(Collection<T> items, int batchSize) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> chunk = new ArrayList<>(batchSize);
+        for (T item : items) {
+            chunk.add(item);
+            if (chunk.size() == batchSize) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>(batchSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,110 @@
+package com.udacity.vehicles.client;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+/**
+ * Coalesces concurrent lookups of the same key, so that callers asking for a
+ * key while it is already being fetched share that fetch instead of starting
+ * their own. A key is only held while its fetch is in flight; nothing is
+ * cached once it completes. A fetch that throws instead of returning a Mono
+ * fails like one that emits the error, so its keys are released.
+ *
+ * @param <K> the lookup key
+ * @param <V> the fetched value
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Fetches the value of one key, or joins the fetch already in flight for it.
+     * @param key the key to look up
+     * @param fetch starts the fetch; called only if no fetch of the key is in flight
+     * @return Mono emitting the value, empty if the fetch found none
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> fetch) {
+        return Mono.defer(() -> {
+            CompletableFuture<V> claimed = new CompletableFuture<>();
+            CompletableFuture<V> existing = inFlight.putIfAbsent(key, claimed);
+            if (existing != null) {
+                return Mono.fromFuture(existing);
+            }
+            Mono.defer(fetch).subscribe(
+                    value -> complete(key, claimed, value),
+                    error -> fail(key, claimed, error),
+                    () -> complete(key, claimed, null));
+            return Mono.fromFuture(claimed);
+        });
+    }
+
+    /**
+     * Fetches the values of several keys at once. Keys already in flight are
+     * joined; only the others are passed to the bulk fetch.
+     * @param keys the keys to look up
+     * @param fetch fetches the values of the keys no one else is fetching
+     * @return Mono emitting the values found, keyed by key; keys whose fetch
+     *   failed or found nothing are left out
+     */
+    public Mono<Map<K, V>> executeAll(Collection<K> keys, Function<List<K>, Mono<Map<K, V>>> fetch) {
+        return Mono.defer(() -> {
+            Map<K, CompletableFuture<V>> futures = new HashMap<>();
+            Map<K, CompletableFuture<V>> claimed = new HashMap<>();
+            for (K key : keys) {
+                if (futures.containsKey(key)) {
+                    continue;
+                }
+                CompletableFuture<V> mine = new CompletableFuture<>();
+                CompletableFuture<V> existing = inFlight.putIfAbsent(key, mine);
+                if (existing != null) {
+                    futures.put(key, existing);
+                } else {
+                    futures.put(key, mine);
+                    claimed.put(key, mine);
+                }
+            }
+            if (!claimed.isEmpty()) {
+                List<K> missing = new ArrayList<>(claimed.keySet());
+                Mono.defer(() -> fetch.apply(missing)).subscribe(
+                        values -> claimed.forEach((key, future) -> complete(key, future, values.get(key))),
+                        error -> claimed.forEach((key, future) -> fail(key, future, error)),
+                        () -> claimed.forEach((key, future) -> complete(key, future, null)));
+            }
+            return Flux.fromIterable(futures.entrySet())
+                    .flatMap(entry -> Mono.fromFuture(entry.getValue())
+                            .map(value -> Tuples.of(entry.getKey(), value))
+                            .onErrorResume(e -> Mono.empty()))
+                    .collectMap(Tuple2::getT1, Tuple2::getT2);
+        });
+    }
+
+    /**
+     * Gets the number of keys currently being fetched.
+     * @return the number of fetches in flight
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    private void complete(K key, CompletableFuture<V> future, V value) {
+        inFlight.remove(key, future);
+        future.complete(value);
+    }
+
+    private void fail(K key, CompletableFuture<V> future, Throwable error) {
+        inFlight.remove(key, future);
+        future.completeExceptionally(error);
+    }
+}
@@ -0,0 +1,175 @@
+package com.udacity.vehicles.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.IdleStateEvent;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.handler.timeout.WriteTimeoutHandler;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Creates the WebClients for the downstream services, each with its own
+ * bounded pool of keep-alive connections. Settings are read per client from
+ * "&lt;name&gt;.client.*" properties:
+ * <ul>
+ * <li>max-connections: pool size</li>
+ * <li>acquire-timeout-ms: how long a request waits for a free connection</li>
+ * <li>idle-timeout-ms: how long an unused connection is kept open</li>
+ * <li>connect-timeout-ms, read-timeout-ms, write-timeout-ms</li>
+ * <li>compression: whether gzip responses are requested</li>
+ * </ul>
+ * Clients are built from the Spring Boot WebClient.Builder, so every request
+ * is timed in the http.client.requests metric. Each pool publishes, tagged
+ * with the client name, its size as http.client.pool.max, the requests
+ * waiting for a connection as http.client.pool.pending, and the requests
+ * that gave up waiting as http.client.pool.acquire.timeouts.
+ */
+@Component
+public class WebClientFactory implements DisposableBean {
+
+    private final WebClient.Builder builder;
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final List<ConnectionProvider> pools = new CopyOnWriteArrayList<>();
+
+    public WebClientFactory(WebClient.Builder builder, Environment environment,
+            MeterRegistry meterRegistry) {
+        this.builder = builder;
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Creates a WebClient with its own connection pool.
+     * @param name the client name, used as property prefix and pool name
+     * @param endpoint the base URL of the service
+     * @return the WebClient
+     */
+    public WebClient create(String name, String endpoint) {
+        int maxConnections = setting(name, "max-connections", 50);
+        int acquireTimeoutMs = setting(name, "acquire-timeout-ms", 2000);
+        int idleTimeoutMs = setting(name, "idle-timeout-ms", 30000);
+        int connectTimeoutMs = setting(name, "connect-timeout-ms", 1000);
+        int readTimeoutMs = setting(name, "read-timeout-ms", 2000);
+        int writeTimeoutMs = setting(name, "write-timeout-ms", 2000);
+        boolean compression = environment.getProperty(name + ".client.compression", Boolean.class, true);
+
+        ConnectionProvider pool = new MeteredPool(name, maxConnections,
+                ConnectionProvider.fixed(name, maxConnections, acquireTimeoutMs), meterRegistry);
+        pools.add(pool);
+        HttpClient httpClient = HttpClient.create(pool)
+                .keepAlive(true)
+                .compress(compression)
+                .tcpConfiguration(tcp -> tcp
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                        .option(ChannelOption.SO_KEEPALIVE, true)
+                        .doOnConnected(connection -> {
+                            if (connection.channel().pipeline().get(IdleEviction.NAME) == null) {
+                                connection.channel().pipeline()
+                                        .addFirst(IdleEviction.NAME, new IdleEviction(idleTimeoutMs));
+                            }
+                        }))
+                .doOnRequest((request, connection) -> connection
+                        .addHandlerLast(new ReadTimeoutHandler(readTimeoutMs, TimeUnit.MILLISECONDS))
+                        .addHandlerLast(new WriteTimeoutHandler(writeTimeoutMs, TimeUnit.MILLISECONDS)));
+        return builder.clone()
+                .baseUrl(endpoint)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        pools.forEach(ConnectionProvider::dispose);
+    }
+
+    private int setting(String name, String key, int defaultValue) {
+        return environment.getProperty(name + ".client." + key, Integer.class, defaultValue);
+    }
+
+    /**
+     * Closes a connection once it has neither read nor written for the idle
+     * timeout, so the pool does not hand out connections the server has
+     * already dropped. The per-request read timeout ends slow requests first.
+     */
+    private static final class IdleEviction extends IdleStateHandler {
+
+        static final String NAME = "idleEviction";
+
+        IdleEviction(long idleTimeoutMs) {
+            super(0, 0, idleTimeoutMs, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        protected void channelIdle(ChannelHandlerContext ctx, IdleStateEvent event) {
+            ctx.close();
+        }
+    }
+
+    /**
+     * Counts the acquires of a connection pool: those waiting for a free
+     * connection, and those failed by the acquire timeout, which the fixed
+     * pool of reactor-netty reports as a TimeoutException.
+     */
+    private static final class MeteredPool implements ConnectionProvider {
+
+        private final ConnectionProvider pool;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final Counter acquireTimeouts;
+
+        MeteredPool(String name, int maxConnections, ConnectionProvider pool,
+                MeterRegistry meterRegistry) {
+            this.pool = pool;
+            Gauge.builder("http.client.pool.max", this, pool -> maxConnections)
+                    .tag("client", name)
+                    .register(meterRegistry);
+            Gauge.builder("http.client.pool.pending", pending, AtomicInteger::get)
+                    .tag("client", name)
+                    .register(meterRegistry);
+            this.acquireTimeouts = Counter.builder("http.client.pool.acquire.timeouts")
+                    .tag("client", name)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public Mono<? extends Connection> acquire(Bootstrap bootstrap) {
+            return pool.acquire(bootstrap)
+                    .doOnSubscribe(subscription -> pending.incrementAndGet())
+                    .doOnError(TimeoutException.class, e -> acquireTimeouts.increment())
+                    .doFinally(signal -> pending.decrementAndGet());
+        }
+
+        @Override
+        public Mono<Void> disposeLater() {
+            return pool.disposeLater();
+        }
+
+        @Override
+        public void dispose() {
+            pool.dispose();
+        }
+
+        @Override
+        public boolean isDisposed() {
+            return pool.isDisposed();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.udacity.vehicles.client.maps;
 
+import com.udacity.vehicles.domain.Location;
+
 /**
  * Declares a class to store an address, city, state and zip code.
  */
@@ -44,4 +46,16 @@ public class Address {
     public void setZip(String zip) {
         this.zip = zip;
     }
+
+    /**
+     * Copies street, city, state and zip onto a location, replacing its
+     * previous address.
+     * @param location the location to update
+     */
+    void copyTo(Location location) {
+        location.setAddress(address);
+        location.setCity(city);
+        location.setState(state);
+        location.setZip(zip);
+    }
 }
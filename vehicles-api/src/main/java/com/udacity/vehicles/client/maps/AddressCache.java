@@ -0,0 +1,112 @@
+package com.udacity.vehicles.client.maps;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.udacity.vehicles.domain.Location;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches reverse geocoded addresses by grid cell. Coordinates are rounded to
+ * a configurable number of decimal places, so repeated or nearby locations
+ * falling into the same cell share one address. The cache is bounded by the
+ * estimated memory held by its entries.
+ */
+@Component
+public class AddressCache {
+
+    private static final int MAX_PRECISION = 7;
+
+    private final long scale;
+    private final Cache<Long, Address> cache;
+
+    /**
+     * Creates the address cache.
+     * @param precision decimal places kept from latitude and longitude; 4
+     *   places is a cell of roughly 11 meters
+     * @param maximumBytes estimated memory the cached addresses may occupy
+     * @param meterRegistry where the hit, miss and eviction metrics are published
+     */
+    public AddressCache(@Value("${maps.cache.precision:4}") int precision,
+            @Value("${maps.cache.maximum-bytes:16777216}") long maximumBytes,
+            MeterRegistry meterRegistry) {
+        if (precision < 0 || precision > MAX_PRECISION) {
+            throw new IllegalArgumentException(
+                    "maps.cache.precision must be between 0 and " + MAX_PRECISION);
+        }
+        long scale = 1;
+        for (int i = 0; i < precision; i++) {
+            scale *= 10;
+        }
+        this.scale = scale;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumBytes)
+                .weigher((Long cell, Address address) -> estimateBytes(address))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "addresses");
+    }
+
+    /**
+     * Gets the cached address of the grid cell containing a location.
+     * @param location An object containing "lat" and "lon" of location
+     * @return the cached address, or null if the cell has not been resolved yet
+     */
+    public Address get(Location location) {
+        Long cell = cellOf(location);
+        return cell == null ? null : cache.getIfPresent(cell);
+    }
+
+    /**
+     * Stores the address resolved for a location under its grid cell.
+     * @param location An object containing "lat" and "lon" of location
+     * @param address the address the Maps client returned for the location
+     */
+    public void put(Location location, Address address) {
+        Long cell = cellOf(location);
+        if (cell != null) {
+            cache.put(cell, address);
+        }
+    }
+
+    /**
+     * Gets the hit, miss and eviction counters of the address cache.
+     * @return a snapshot of the cache statistics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * Packs the rounded latitude and longitude of a location into one key.
+     * @param location An object containing "lat" and "lon" of location
+     * @return the grid cell of the location, or null if it has no coordinates
+     */
+    Long cellOf(Location location) {
+        if (location.getLat() == null || location.getLon() == null) {
+            return null;
+        }
+        long lat = Math.round(location.getLat() * scale) + 90 * scale;
+        long lon = Math.round(location.getLon() * scale) + 180 * scale;
+        return lat * (360 * scale + 1) + lon;
+    }
+
+    /**
+     * Roughly estimates the heap held by a cached address: the entry and
+     * address objects plus each string and its characters.
+     */
+    private static int estimateBytes(Address address) {
+        return 96
+                + stringBytes(address.getAddress())
+                + stringBytes(address.getCity())
+                + stringBytes(address.getState())
+                + stringBytes(address.getZip());
+    }
+
+    private static int stringBytes(String value) {
+        return value == null ? 0 : 40 + 2 * value.length();
+    }
+}
@@ -0,0 +1,26 @@
+package com.udacity.vehicles.client.maps;
+
+/**
+ * Declares a class to send a latitude and longitude pair to the Maps client.
+ */
+public class Coordinates {
+
+    private Double lat;
+    private Double lon;
+
+    public Coordinates() {
+    }
+
+    public Coordinates(Double lat, Double lon) {
+        this.lat = lat;
+        this.lon = lon;
+    }
+
+    public Double getLat() {
+        return lat;
+    }
+
+    public Double getLon() {
+        return lon;
+    }
+}
@@ -1,15 +1,31 @@
 package com.udacity.vehicles.client.maps;
 
+import com.udacity.vehicles.client.Batches;
+import com.udacity.vehicles.client.SingleFlight;
 import com.udacity.vehicles.domain.Location;
-import java.util.Objects;
-import org.modelmapper.ModelMapper;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Implements a class to interface with the Maps Client for location data.
+ * Every call is bounded by a timeout and guarded by the "maps" circuit
+ * breaker, so an outage of the Maps service is answered from the fallback
+ * right away instead of tying up the caller. Concurrent lookups of the same
+ * grid cell share one request to the Maps service.
  */
 @Component
 public class MapsClient {
@@ -17,38 +33,140 @@ public class MapsClient {
     private static final Logger log = LoggerFactory.getLogger(MapsClient.class);
 
     private final WebClient client;
-    private final ModelMapper mapper;
+    private final AddressCache cache;
+    private final SingleFlight<Long, Address> inFlight = new SingleFlight<>();
+    private final int batchSize;
+    private final Duration timeout;
+    private final CircuitBreaker circuitBreaker;
 
     public MapsClient(WebClient maps,
-            ModelMapper mapper) {
+            AddressCache cache,
+            @Value("${maps.batch-size:100}") int batchSize,
+            @Value("${maps.timeout-ms:2000}") long timeoutMs,
+            CircuitBreakerRegistry circuitBreakers) {
         this.client = maps;
-        this.mapper = mapper;
+        this.cache = cache;
+        this.batchSize = batchSize;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.circuitBreaker = circuitBreakers.circuitBreaker("maps");
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Maps circuit breaker {}", event.getStateTransition()));
     }
 
     /**
      * Gets an address from the Maps client, given latitude and longitude.
      * @param location An object containing "lat" and "lon" of location
      * @return An updated location including street, city, state and zip,
-     *   or an exception message noting the Maps service is down
+     *   or the unchanged location if the Maps service is down or slow
      */
     public Location getAddress(Location location) {
-        try {
-            Address address = client
-                    .get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/maps/")
-                            .queryParam("lat", location.getLat())
-                            .queryParam("lon", location.getLon())
-                            .build()
-                    )
-                    .retrieve().bodyToMono(Address.class).block();
-
-            mapper.map(Objects.requireNonNull(address), location);
-
-            return location;
-        } catch (Exception e) {
-            log.warn("Map service is down");
-            return location;
+        return getAddressAsync(location).block();
+    }
+
+    /**
+     * Gets an address without blocking the caller, from the address cache if
+     * the location's grid cell was resolved before and from the Maps client
+     * otherwise.
+     * @param location An object containing "lat" and "lon" of location
+     * @return Mono emitting the updated location including street, city, state
+     *   and zip, or the unchanged location if the Maps service is down
+     */
+    public Mono<Location> getAddressAsync(Location location) {
+        Address cached = cache.get(location);
+        if (cached != null) {
+            cached.copyTo(location);
+            return Mono.just(location);
         }
+        Long cell = cache.cellOf(location);
+        Mono<Address> address = cell == null
+                ? fetchAddress(location)
+                : inFlight.execute(cell, () -> fetchAddress(location));
+        return address
+                .map(resolved -> {
+                    resolved.copyTo(location);
+                    return location;
+                })
+                .doOnError(e -> log.warn("Map service is down"))
+                .onErrorReturn(location)
+                .defaultIfEmpty(location);
+    }
+
+    /**
+     * Gets the addresses of several locations, serving cached grid cells
+     * directly and sending the remaining coordinates to the Maps client in
+     * chunks of at most batchSize per request. Each grid cell is requested
+     * once, and not at all if another caller is already requesting it.
+     * @param locations the locations to resolve, each containing "lat" and "lon"
+     * @param concurrency maximum number of chunks requested at once
+     * @return Mono emitting the locations, in order, updated with street,
+     *   city, state and zip wherever the Maps service answered
+     */
+    public Mono<List<Location>> getAddressesAsync(List<Location> locations, int concurrency) {
+        Map<Long, Location> missing = new LinkedHashMap<>();
+        for (Location location : locations) {
+            Address cached = cache.get(location);
+            Long cell = cache.cellOf(location);
+            if (cached != null) {
+                cached.copyTo(location);
+            } else if (cell != null) {
+                missing.putIfAbsent(cell, location);
+            }
+        }
+        if (missing.isEmpty()) {
+            return Mono.just(locations);
+        }
+        return inFlight.executeAll(missing.keySet(), cells ->
+                Flux.fromIterable(Batches.partition(cells, batchSize))
+                        .flatMap(chunk -> getAddressChunk(chunk, missing), concurrency)
+                        .<Map<Long, Address>>collect(HashMap::new, Map::putAll))
+                .map(addresses -> {
+                    for (Location location : locations) {
+                        Address address = addresses.get(cache.cellOf(location));
+                        if (address != null) {
+                            address.copyTo(location);
+                        }
+                    }
+                    return locations;
+                });
+    }
+
+    private Mono<Address> fetchAddress(Location location) {
+        return client
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/maps/")
+                        .queryParam("lat", location.getLat())
+                        .queryParam("lon", location.getLon())
+                        .build()
+                )
+                .retrieve().bodyToMono(Address.class)
+                .timeout(timeout)
+                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .doOnNext(address -> cache.put(location, address));
+    }
+
+    private Mono<Map<Long, Address>> getAddressChunk(List<Long> cells, Map<Long, Location> locations) {
+        List<Coordinates> coordinates = cells.stream()
+                .map(locations::get)
+                .map(location -> new Coordinates(location.getLat(), location.getLon()))
+                .collect(Collectors.toList());
+        return client
+                .post()
+                .uri("/maps/batch")
+                .syncBody(coordinates)
+                .retrieve().bodyToFlux(Address.class)
+                .collectList()
+                .timeout(timeout)
+                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .map(addresses -> {
+                    Map<Long, Address> resolved = new HashMap<>();
+                    for (int i = 0; i < addresses.size() && i < cells.size(); i++) {
+                        cache.put(locations.get(cells.get(i)), addresses.get(i));
+                        resolved.put(cells.get(i), addresses.get(i));
+                    }
+                    return resolved;
+                })
+                .doOnError(e -> log.warn("Map service is down"))
+                .onErrorReturn(new HashMap<>());
     }
 }
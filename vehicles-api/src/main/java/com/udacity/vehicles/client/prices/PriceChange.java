@@ -0,0 +1,31 @@
+package com.udacity.vehicles.client.prices;
+
+/**
+ * Represents a change of price sent by the change feed of the pricing
+ * service: the new price of a vehicle, or its removal, and the version of
+ * the price table the change produced.
+ */
+public class PriceChange extends Price {
+
+    private long version;
+    private boolean deleted;
+
+    public PriceChange() {
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public boolean isDeleted() {
+        return deleted;
+    }
+
+    public void setDeleted(boolean deleted) {
+        this.deleted = deleted;
+    }
+}
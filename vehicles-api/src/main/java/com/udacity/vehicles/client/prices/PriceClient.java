@@ -1,12 +1,58 @@
 package com.udacity.vehicles.client.prices;
 
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.udacity.vehicles.client.Batches;
+import com.udacity.vehicles.client.SingleFlight;
+import com.udacity.vehicles.domain.Money;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerOpenException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 /**
  * Implements a class to interface with the Pricing Client for price data.
+ * Prices are kept in a bounded in-process cache keyed by vehicle ID, expired
+ * after a fixed time and refreshed in the background once they turn stale.
+ * Every call is bounded by a timeout and guarded by the "pricing" circuit
+ * breaker, so an outage of the pricing service leaves the price unknown
+ * right away instead of tying up the caller. Concurrent lookups of the same
+ * vehicle ID, single or batched, share one request to the pricing service.
+ * Prices are asked for in the compact binary encoding of PriceCodec, with
+ * plain JSON as fallback, and decoded straight into Money. If a PriceReplica
+ * is configured, prices are looked up in it without any request while it is
+ * live, and every change it receives evicts the cached price.
+ * A single price is cached with its ETag; a stale price is refreshed with
+ * a conditional request, and kept without transfer or decoding when the
+ * pricing service answers that it has not been modified. A price fetched
+ * in a batch is not cached if the vehicle was evicted while the batch was
+ * in flight, as the answer may predate the change behind the eviction.
  */
 @Component
 public class PriceClient {
@@ -14,39 +60,244 @@ public class PriceClient {
     private static final Logger log = LoggerFactory.getLogger(PriceClient.class);
 
     private final WebClient client;
+    private final int batchSize;
+    private final AsyncLoadingCache<Long, CachedPrice> cache;
+    private final SingleFlight<Long, CachedPrice> inFlight = new SingleFlight<>();
+    private final Duration timeout;
+    private final CircuitBreaker circuitBreaker;
+    private final AtomicLong evictions = new AtomicLong();
+    private final Cache<Long, Long> evictedAt;
+    private volatile PriceReplica replica;
 
-    public PriceClient(WebClient pricing) {
+    public PriceClient(WebClient pricing,
+            @Value("${pricing.batch-size:100}") int batchSize,
+            @Value("${pricing.cache.maximum-size:10000}") long cacheMaximumSize,
+            @Value("${pricing.cache.expire-after-write-seconds:600}") long expireAfterWriteSeconds,
+            @Value("${pricing.cache.refresh-after-write-seconds:60}") long refreshAfterWriteSeconds,
+            @Value("${pricing.timeout-ms:2000}") long timeoutMs,
+            MeterRegistry meterRegistry,
+            CircuitBreakerRegistry circuitBreakers) {
         this.client = pricing;
+        this.batchSize = batchSize;
+        this.timeout = Duration.ofMillis(timeoutMs);
+        this.circuitBreaker = circuitBreakers.circuitBreaker("pricing");
+        this.evictedAt = Caffeine.newBuilder()
+                .expireAfterWrite(2 * timeoutMs, TimeUnit.MILLISECONDS)
+                .build();
+        circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("Pricing circuit breaker {}", event.getStateTransition()));
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(cacheMaximumSize)
+                .expireAfterWrite(expireAfterWriteSeconds, TimeUnit.SECONDS)
+                .refreshAfterWrite(refreshAfterWriteSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .buildAsync(new AsyncCacheLoader<Long, CachedPrice>() {
+                    @Override
+                    public CompletableFuture<CachedPrice> asyncLoad(Long vehicleId, Executor executor) {
+                        return inFlight.execute(vehicleId, () -> fetchPrice(vehicleId, null)).toFuture();
+                    }
+
+                    @Override
+                    public CompletableFuture<CachedPrice> asyncReload(Long vehicleId, CachedPrice cached,
+                            Executor executor) {
+                        return inFlight.execute(vehicleId, () -> fetchPrice(vehicleId, cached)).toFuture();
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "prices");
+    }
+
+    /**
+     * Serves prices from a local replica of the pricing service while it is live.
+     * @param replica the replica, subscribed to the change feed of the pricing service
+     */
+    @Autowired(required = false)
+    public void setReplica(PriceReplica replica) {
+        replica.onChange(this::evict);
+        this.replica = replica;
     }
 
-    // In a real-world application we'll want to add some resilience
-    // to this method with retries/CB/failover capabilities
-    // We may also want to cache the results so we don't need to
-    // do a request every time
     /**
      * Gets a vehicle price from the pricing client, given vehicle ID.
      * @param vehicleId ID number of the vehicle for which to get the price
-     * @return Currency and price of the requested vehicle,
-     *   error message that the vehicle ID is invalid, or note that the
-     *   service is down.
-     */
-    public String getPrice(Long vehicleId) {
-        try {
-            log.info("Finding price for vehicle id:"+ vehicleId);
-            Price price = client
-                    .get()
-                    .uri(uriBuilder -> uriBuilder
-                            .path("/prices/"+vehicleId)
-                           // .queryParam("vehicleId", vehicleId)
-                            .build()
-                    )
-                    .retrieve().bodyToMono(Price.class).block();
-            log.info("Found price {} for vehicle id:"+ vehicleId,price.getPrice());
-            return String.format("%s %s", price.getCurrency(), price.getPrice());
-
-        } catch (Exception e) {
-            log.error("Unexpected error retrieving price for vehicle {}", vehicleId, e);
+     * @return Currency and price of the requested vehicle, or null if the
+     *   vehicle ID is unknown or the service is down.
+     */
+    public Money getPrice(Long vehicleId) {
+        return getPriceAsync(vehicleId).block();
+    }
+
+    /**
+     * Gets a vehicle price without blocking the caller, from the cache if
+     * present and from the pricing client otherwise.
+     * @param vehicleId ID number of the vehicle for which to get the price
+     * @return Mono emitting the currency and price of the requested vehicle,
+     *   or completing empty if the price is unknown or the service is down.
+     */
+    public Mono<Money> getPriceAsync(Long vehicleId) {
+        Map<Long, Money> local = lookupReplica(Collections.singletonList(vehicleId));
+        if (local != null) {
+            return Mono.justOrEmpty(local.get(vehicleId));
+        }
+        return Mono.defer(() -> Mono.fromFuture(cache.get(vehicleId)))
+                .map(cached -> cached.price)
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * Gets the prices of several vehicles from the pricing client, sending
+     * the vehicle IDs in chunks of at most batchSize per request.
+     * @param vehicleIds ID numbers of the vehicles for which to get prices
+     * @return Currency and price keyed by vehicle ID, without the vehicles
+     *   whose price is unknown or could not be retrieved.
+     */
+    public Map<Long, Money> getPrices(Collection<Long> vehicleIds) {
+        return getPricesAsync(vehicleIds, Integer.MAX_VALUE).block();
+    }
+
+    /**
+     * Gets the prices of several vehicles without blocking the caller. Cached
+     * prices are served directly; only the remaining vehicle IDs are requested,
+     * except those another caller is already requesting.
+     * @param vehicleIds ID numbers of the vehicles for which to get prices
+     * @param concurrency maximum number of chunks requested at once
+     * @return Mono emitting currency and price keyed by vehicle ID, without
+     *   the vehicles whose price is unknown or could not be retrieved
+     */
+    public Mono<Map<Long, Money>> getPricesAsync(Collection<Long> vehicleIds, int concurrency) {
+        Map<Long, Money> local = lookupReplica(vehicleIds);
+        if (local != null) {
+            return Mono.just(local);
+        }
+        Map<Long, Money> cached = new HashMap<>();
+        cache.synchronous().getAllPresent(vehicleIds).forEach((id, entry) -> cached.put(id, entry.price));
+        List<Long> missing = new ArrayList<>();
+        for (Long vehicleId : vehicleIds) {
+            if (!cached.containsKey(vehicleId)) {
+                missing.add(vehicleId);
+            }
+        }
+        return inFlight.executeAll(missing, ids -> Flux.fromIterable(Batches.partition(ids, batchSize))
+                        .flatMap(chunk -> Mono.defer(() -> {
+                            long requestedAt = evictions.get();
+                            return getPriceChunk(chunk).doOnNext(prices -> cacheFetched(prices, requestedAt));
+                        }), concurrency)
+                        .<Map<Long, CachedPrice>>collect(HashMap::new, Map::putAll))
+                .map(fetched -> {
+                    Map<Long, Money> prices = new HashMap<>(cached);
+                    fetched.forEach((id, entry) -> prices.put(id, entry.price));
+                    return prices;
+                });
+    }
+
+    /**
+     * Drops the cached price of a vehicle, so the next lookup asks the pricing client.
+     * @param vehicleId ID number of the vehicle whose price may have changed
+     */
+    public void evict(Long vehicleId) {
+        evictedAt.put(vehicleId, evictions.incrementAndGet());
+        cache.synchronous().invalidate(vehicleId);
+    }
+
+    /**
+     * Gets the hit, miss, load and eviction counters of the price cache.
+     * @return a snapshot of the cache statistics
+     */
+    public CacheStats cacheStats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Caches the prices of a batch, except those of vehicles evicted since
+     * the batch was requested. Batches end within the timeout, so eviction
+     * stamps are only kept for twice as long.
+     * @param prices the prices of the batch, keyed by vehicle ID
+     * @param requestedAt the eviction count when the batch was requested
+     */
+    private void cacheFetched(Map<Long, CachedPrice> prices, long requestedAt) {
+        prices.forEach((vehicleId, price) -> {
+            Long evicted = evictedAt.getIfPresent(vehicleId);
+            if (evicted == null || evicted <= requestedAt) {
+                cache.put(vehicleId, CompletableFuture.completedFuture(price));
+            }
+        });
+    }
+
+    private Map<Long, Money> lookupReplica(Collection<Long> vehicleIds) {
+        PriceReplica current = replica;
+        return current == null ? null : current.lookup(vehicleIds);
+    }
+
+    /**
+     * Fetches the price of a vehicle, or revalidates a cached one.
+     * @param vehicleId ID number of the vehicle for which to get the price
+     * @param cached the cached price to revalidate, if any
+     * @return Mono emitting the price, the cached one if it was not modified
+     */
+    private Mono<CachedPrice> fetchPrice(Long vehicleId, CachedPrice cached) {
+        log.info("Finding price for vehicle id:"+ vehicleId);
+        WebClient.RequestHeadersSpec<?> request = client
+                .get()
+                .uri(uriBuilder -> uriBuilder
+                        .path("/price-table/"+vehicleId)
+                        .build()
+                )
+                .accept(PriceCodec.BINARY, MediaType.APPLICATION_JSON);
+        if (cached != null && cached.etag != null) {
+            request = request.ifNoneMatch(cached.etag);
+        }
+        return request
+                .retrieve().toEntity(byte[].class)
+                .timeout(timeout)
+                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .flatMap(response -> {
+                    if (response.getStatusCode() == HttpStatus.NOT_MODIFIED && cached != null) {
+                        return Mono.just(cached);
+                    }
+                    return Mono.fromCallable(() ->
+                            PriceCodec.decode(response.getHeaders().getContentType(), response.getBody()))
+                            .map(price -> new CachedPrice(price, response.getHeaders().getETag()));
+                })
+                .doOnNext(price -> log.info("Found price {} for vehicle id:"+ vehicleId, price.price))
+                .doOnError(e -> !(e instanceof CircuitBreakerOpenException),
+                        e -> log.error("Unexpected error retrieving price for vehicle {}", vehicleId, e));
+    }
+
+    private Mono<Map<Long, CachedPrice>> getPriceChunk(List<Long> vehicleIds) {
+        log.info("Finding prices for {} vehicles", vehicleIds.size());
+        return client
+                .post()
+                .uri("/prices/batch")
+                .accept(PriceCodec.BINARY, MediaType.APPLICATION_JSON)
+                .syncBody(vehicleIds)
+                .retrieve().toEntity(byte[].class)
+                .timeout(timeout)
+                .transform(CircuitBreakerOperator.of(circuitBreaker))
+                .flatMap(response -> Mono.fromCallable(() ->
+                        PriceCodec.decodeAll(response.getHeaders().getContentType(), response.getBody())))
+                .map(CachedPrice::untagged)
+                .doOnError(e -> !(e instanceof CircuitBreakerOpenException),
+                        e -> log.error("Unexpected error retrieving prices for vehicles {}", vehicleIds, e))
+                .onErrorReturn(new HashMap<>());
+    }
+
+    /**
+     * Holds a cached price with the ETag it was served with. Prices fetched
+     * in batches have no ETag, and are fetched in full when refreshed.
+     */
+    private static final class CachedPrice {
+
+        private final Money price;
+        private final String etag;
+
+        CachedPrice(Money price, String etag) {
+            this.price = price;
+            this.etag = etag;
+        }
+
+        static Map<Long, CachedPrice> untagged(Map<Long, Money> prices) {
+            Map<Long, CachedPrice> cached = new HashMap<>();
+            prices.forEach((vehicleId, price) -> cached.put(vehicleId, new CachedPrice(price, null)));
+            return cached;
         }
-        return "(consult price)";
     }
 }
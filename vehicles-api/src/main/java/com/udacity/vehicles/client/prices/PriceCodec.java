@@ -0,0 +1,141 @@
+package com.udacity.vehicles.client.prices;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.udacity.vehicles.domain.Money;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+
+/**
+ * Decodes the prices answered by the pricing service straight into Money:
+ * plain JSON, as one price or as prices keyed by vehicle ID, or the
+ * compact binary encoding the service answers with when asked for BINARY.
+ *
+ * A binary price is the vehicle ID as a long, the currency code as
+ * modified UTF-8 with a two-byte length, the scale of the amount as an int
+ * and its unscaled value as two's complement bytes with a two-byte length,
+ * all big-endian. A missing currency is an empty string and a missing
+ * amount zero bytes. A binary batch is the number of prices as an int
+ * followed by the prices.
+ */
+public final class PriceCodec {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceCodec.class);
+
+    public static final MediaType BINARY = MediaType.valueOf("application/x-price-binary");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private static final ObjectReader PRICE_READER = MAPPER.readerFor(Price.class);
+
+    private static final ObjectReader PRICE_MAP_READER =
+            MAPPER.readerFor(new TypeReference<Map<Long, Price>>() {
+            });
+
+    private PriceCodec() {
+    }
+
+    /**
+     * Decodes one price.
+     * @param contentType the content type of the response, JSON if not given
+     * @param body the body of the response
+     * @return the price, or null if the body holds no price
+     * @throws IOException if the body cannot be decoded
+     */
+    public static Money decode(MediaType contentType, byte[] body) throws IOException {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        if (isBinary(contentType)) {
+            return toMoney(readBinary(new DataInputStream(new ByteArrayInputStream(body))));
+        }
+        return toMoney(PRICE_READER.readValue(body));
+    }
+
+    /**
+     * Decodes prices keyed by vehicle ID.
+     * @param contentType the content type of the response, JSON if not given
+     * @param body the body of the response
+     * @return the prices keyed by vehicle ID, without those holding no price
+     *   or one that cannot be converted to Money
+     * @throws IOException if the body cannot be decoded
+     */
+    public static Map<Long, Money> decodeAll(MediaType contentType, byte[] body) throws IOException {
+        Map<Long, Money> prices = new HashMap<>();
+        if (body == null || body.length == 0) {
+            return prices;
+        }
+        if (isBinary(contentType)) {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+            for (int count = in.readInt(); count > 0; count--) {
+                put(prices, readBinary(in));
+            }
+            return prices;
+        }
+        Map<Long, Price> read = PRICE_MAP_READER.readValue(body);
+        read.forEach((vehicleId, price) -> {
+            price.setVehicleId(vehicleId);
+            put(prices, price);
+        });
+        return prices;
+    }
+
+    /**
+     * Converts a price as written by the pricing service. Currency codes
+     * are stored in lower case there.
+     * @param price the price
+     * @return the price as Money, or null if its currency or amount is missing
+     */
+    static Money toMoney(Price price) {
+        if (price.getCurrency() == null || price.getCurrency().isEmpty() || price.getPrice() == null) {
+            return null;
+        }
+        return Money.of(price.getCurrency().toUpperCase(Locale.ROOT), price.getPrice());
+    }
+
+    private static boolean isBinary(MediaType contentType) {
+        return contentType != null && BINARY.equalsTypeAndSubtype(contentType);
+    }
+
+    /**
+     * Adds a price of a batch; a price with an unknown currency or an
+     * amount out of range is logged and left out, keeping the others.
+     */
+    private static void put(Map<Long, Money> prices, Price price) {
+        Money money;
+        try {
+            money = toMoney(price);
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            log.warn("Ignoring price of vehicle {}: {}", price.getVehicleId(), e.getMessage());
+            return;
+        }
+        if (money != null) {
+            prices.put(price.getVehicleId(), money);
+        }
+    }
+
+    private static Price readBinary(DataInputStream in) throws IOException {
+        Price price = new Price();
+        price.setVehicleId(in.readLong());
+        price.setCurrency(in.readUTF());
+        int scale = in.readInt();
+        byte[] unscaled = new byte[in.readUnsignedShort()];
+        in.readFully(unscaled);
+        if (unscaled.length > 0) {
+            price.setPrice(new BigDecimal(new BigInteger(unscaled), scale));
+        }
+        return price;
+    }
+}
@@ -0,0 +1,237 @@
+package com.udacity.vehicles.client.prices;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.udacity.vehicles.domain.Money;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+
+/**
+ * Keeps a local copy of every price, subscribed to the change feed of the
+ * pricing service, so that prices can be looked up without a request.
+ * On each connection the feed sends every current price, a "ready" event,
+ * then each change; the copy built from a connection is served from its
+ * "ready" event on. Changes are kept per vehicle by version, so a change
+ * overtaken by a later one is ignored. When the connection fails or the
+ * pricing service ends it, the copy is no longer served until a new one is
+ * ready. Change listeners are called for each change that alters a price
+ * while the copy is served, and, once a new copy is ready, for each
+ * vehicle whose price differs from the copy served before; loading a copy
+ * alone does not call them. Events are read as text and decoded by name,
+ * as only "price" events hold a PriceChange.
+ */
+public class PriceReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceReplica.class);
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> FEED_EVENT =
+            new ParameterizedTypeReference<ServerSentEvent<String>>() {
+            };
+
+    private static final ObjectReader CHANGE_READER = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+            .readerFor(PriceChange.class);
+
+    private final WebClient client;
+    private final Duration retryDelay;
+    private final List<Consumer<Long>> listeners = new CopyOnWriteArrayList<>();
+    private volatile Map<Long, Entry> prices;
+    private Map<Long, Entry> lastServed;
+    private Disposable subscription;
+
+    public PriceReplica(WebClient pricing, long retryDelayMs) {
+        this.client = pricing;
+        this.retryDelay = Duration.ofMillis(retryDelayMs);
+    }
+
+    /**
+     * Subscribes to the change feed, reconnecting after retryDelay whenever
+     * the connection fails or ends.
+     */
+    public synchronized void start() {
+        if (subscription == null) {
+            subscription = Flux.defer(this::connect)
+                    .repeatWhen(ends -> ends.delayElements(retryDelay))
+                    .retryWhen(errors -> errors.delayElements(retryDelay))
+                    .subscribe();
+        }
+    }
+
+    /**
+     * Ends the subscription to the change feed.
+     */
+    public synchronized void stop() {
+        if (subscription != null) {
+            subscription.dispose();
+            subscription = null;
+        }
+        prices = null;
+        lastServed = null;
+    }
+
+    /**
+     * Tells whether the local copy is being served.
+     * @return true once a connection has sent every current price
+     */
+    public boolean isLive() {
+        return prices != null;
+    }
+
+    /**
+     * Looks up prices in the local copy.
+     * @param vehicleIds ID numbers of the vehicles for which to get prices
+     * @return prices keyed by vehicle ID, without the vehicles that have
+     *   none; or null if the local copy is not being served
+     */
+    public Map<Long, Money> lookup(Collection<Long> vehicleIds) {
+        Map<Long, Entry> current = prices;
+        if (current == null) {
+            return null;
+        }
+        Map<Long, Money> found = new HashMap<>();
+        for (Long vehicleId : vehicleIds) {
+            Entry entry = current.get(vehicleId);
+            if (entry != null && entry.price != null) {
+                found.put(vehicleId, entry.price);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Registers a listener called with the vehicle ID of every change received.
+     * @param listener the listener
+     */
+    public void onChange(Consumer<Long> listener) {
+        listeners.add(listener);
+    }
+
+    private Flux<ServerSentEvent<String>> connect() {
+        Map<Long, Entry> replica = new ConcurrentHashMap<>();
+        return client.get()
+                .uri("/price-table/changes")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .bodyToFlux(FEED_EVENT)
+                .doOnNext(event -> {
+                    if ("ready".equals(event.event())) {
+                        serve(replica);
+                        log.info("Price replica ready with {} prices", replica.size());
+                    } else if ("price".equals(event.event()) && event.data() != null) {
+                        PriceChange change = decode(event.data());
+                        if (change != null) {
+                            apply(replica, change, prices == replica);
+                        }
+                    }
+                })
+                .doOnError(e -> log.warn("Price change feed failed: {}", e.toString()))
+                .doFinally(signal -> {
+                    synchronized (this) {
+                        if (prices == replica) {
+                            prices = null;
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Starts serving a copy that is ready, and calls the listeners for each
+     * vehicle whose price differs from the copy served before, as its
+     * changes may have been missed while no copy was served.
+     */
+    private void serve(Map<Long, Entry> replica) {
+        Map<Long, Entry> previous;
+        synchronized (this) {
+            previous = lastServed;
+            lastServed = replica;
+            prices = replica;
+        }
+        if (previous == null) {
+            return;
+        }
+        Set<Long> vehicleIds = new HashSet<>(previous.keySet());
+        vehicleIds.addAll(replica.keySet());
+        for (Long vehicleId : vehicleIds) {
+            if (!Objects.equals(priceOf(previous.get(vehicleId)), priceOf(replica.get(vehicleId)))) {
+                fireChange(vehicleId);
+            }
+        }
+    }
+
+    private static PriceChange decode(String data) {
+        try {
+            return CHANGE_READER.readValue(data);
+        } catch (IOException e) {
+            log.warn("Ignoring price change event: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Stores a change unless a later version is already known, and calls
+     * the listeners if asked to and the stored price actually changed.
+     * Changes of a connection are applied by its single event thread.
+     */
+    private void apply(Map<Long, Entry> replica, PriceChange change, boolean notify) {
+        if (change.getVehicleId() == null) {
+            return;
+        }
+        Money price = null;
+        if (!change.isDeleted()) {
+            try {
+                price = PriceCodec.toMoney(change);
+            } catch (IllegalArgumentException | ArithmeticException e) {
+                log.warn("Ignoring price of vehicle {}: {}", change.getVehicleId(), e.getMessage());
+            }
+        }
+        Entry known = replica.get(change.getVehicleId());
+        if (known != null && known.version > change.getVersion()) {
+            return;
+        }
+        replica.put(change.getVehicleId(), new Entry(change.getVersion(), price));
+        if (notify && !Objects.equals(priceOf(known), price)) {
+            fireChange(change.getVehicleId());
+        }
+    }
+
+    private void fireChange(Long vehicleId) {
+        listeners.forEach(listener -> listener.accept(vehicleId));
+    }
+
+    private static Money priceOf(Entry entry) {
+        return entry == null ? null : entry.price;
+    }
+
+    /**
+     * Holds the price of a vehicle at a version, or null once removed.
+     */
+    private static final class Entry {
+
+        private final long version;
+        private final Money price;
+
+        Entry(long version, Money price) {
+            this.version = version;
+            this.price = price;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.udacity.vehicles.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.apache.catalina.connector.Connector;
+import org.apache.coyote.AbstractProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Configures the threads that run blocking work: storing resolved addresses
+ * in the background and, in virtual-thread mode, handling requests.
+ *
+ * With vehicles.virtual-threads.enabled=true every Tomcat request and every
+ * blocking task runs on its own virtual thread, so requests waiting on the
+ * pricing or maps services no longer hold a platform thread. Virtual threads
+ * need Java 21 or later; startup fails on older runtimes.
+ */
+@Configuration
+public class ExecutionConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ExecutionConfig.class);
+
+    /**
+     * Creates the executor for blocking work: one virtual thread per task in
+     * virtual-thread mode, and a growing pool of platform threads otherwise.
+     * @param virtualThreads whether virtual-thread mode is enabled
+     * @return the executor
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService blockingExecutor(
+            @Value("${vehicles.virtual-threads.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            log.info("Running request handling and blocking calls on virtual threads");
+            return newVirtualThreadPerTaskExecutor();
+        }
+        return Executors.newCachedThreadPool(new CustomizableThreadFactory("blocking-"));
+    }
+
+    /**
+     * Exposes the blocking executor to reactive pipelines.
+     * @param blockingExecutor the executor for blocking work
+     * @return the scheduler
+     */
+    @Bean
+    public Scheduler blockingScheduler(@Qualifier("blockingExecutor") ExecutorService blockingExecutor) {
+        return Schedulers.fromExecutorService(blockingExecutor);
+    }
+
+    /**
+     * Hands every Tomcat request to the virtual-thread executor instead of
+     * the bounded Tomcat thread pool.
+     * @param blockingExecutor the executor for blocking work
+     * @return the Tomcat customizer
+     */
+    @Bean
+    @ConditionalOnProperty(name = "vehicles.virtual-threads.enabled", havingValue = "true")
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadTomcatCustomizer(
+            @Qualifier("blockingExecutor") ExecutorService blockingExecutor) {
+        return factory -> factory.addConnectorCustomizers((Connector connector) ->
+                ((AbstractProtocol<?>) connector.getProtocolHandler()).setExecutor(blockingExecutor));
+    }
+
+    /**
+     * Looks up Executors.newVirtualThreadPerTaskExecutor reflectively, as the
+     * application is built for Java 11.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("vehicles.virtual-threads.enabled requires Java 21 or later, "
+                    + "running on " + System.getProperty("java.version"), e);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Could not create a virtual thread executor", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.udacity.vehicles.config;
+
+import java.util.concurrent.Executors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Configures the reactive variant of the Vehicles API, active with the
+ * "reactive" profile.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveConfig {
+
+    /**
+     * Serves the reactive API from Netty. Tomcat is on the classpath for the
+     * servlet variant and would otherwise be picked.
+     * @return the web server factory
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Runs blocking repository calls off the event loop, on no more threads
+     * than there are database connections to use.
+     * @param poolSize the number of threads
+     * @return the scheduler
+     */
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler(@Value("${vehicles.reactive.jdbc-pool-size:10}") int poolSize) {
+        return Schedulers.fromExecutorService(
+                Executors.newFixedThreadPool(poolSize, new CustomizableThreadFactory("jdbc-")));
+    }
+}
@@ -0,0 +1,54 @@
+package com.udacity.vehicles.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.CircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+/**
+ * Configures the circuit breakers guarding the calls to the maps and pricing
+ * services, and publishes their state and call counts as metrics.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    /**
+     * Creates the registry the clients take their circuit breakers from. A
+     * breaker opens once the failure rate over the last calls reaches the
+     * threshold, fails fast while open, and lets a few probe calls through
+     * once the wait duration is over.
+     * @return the circuit breaker registry
+     */
+    @Bean
+    public CircuitBreakerRegistry circuitBreakerRegistry(
+            @Value("${resilience.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+            @Value("${resilience.circuit-breaker.wait-duration-in-open-state-ms:10000}") long waitDurationMs,
+            @Value("${resilience.circuit-breaker.ring-buffer-size-in-closed-state:20}") int closedBufferSize,
+            @Value("${resilience.circuit-breaker.ring-buffer-size-in-half-open-state:5}") int halfOpenBufferSize,
+            MeterRegistry meterRegistry) {
+        CircuitBreakerConfig config = CircuitBreakerConfig.custom()
+                .failureRateThreshold(failureRateThreshold)
+                .waitDurationInOpenState(Duration.ofMillis(waitDurationMs))
+                .ringBufferSizeInClosedState(closedBufferSize)
+                .ringBufferSizeInHalfOpenState(halfOpenBufferSize)
+                .recordFailure(ResilienceConfig::isServiceFailure)
+                .build();
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(config);
+        CircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry;
+    }
+
+    /**
+     * Tells whether an error means the remote service is unhealthy. Client
+     * errors such as an unknown vehicle ID do not count against the service.
+     */
+    static boolean isServiceFailure(Throwable e) {
+        return !(e instanceof WebClientResponseException)
+                || ((WebClientResponseException) e).getStatusCode().is5xxServerError();
+    }
+}
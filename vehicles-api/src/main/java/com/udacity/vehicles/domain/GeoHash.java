@@ -0,0 +1,161 @@
+package com.udacity.vehicles.domain;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Encodes coordinates as geohashes: base 32 strings naming a cell of the
+ * globe, where every additional character narrows the cell and all points
+ * of a cell share its prefix. Points near each other therefore share a
+ * prefix, and an indexed geohash column can be searched by prefix ranges.
+ */
+public final class GeoHash {
+
+    /**
+     * Number of characters stored per location, a cell of about 150 m by 150 m.
+     */
+    public static final int PRECISION = 7;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final double KM_PER_DEGREE_LAT = Math.toRadians(EARTH_RADIUS_KM);
+
+    /**
+     * Largest number of cells a cover is made of, one prefix range each.
+     */
+    private static final int MAX_CELLS = 16;
+
+    private GeoHash() {
+    }
+
+    /**
+     * Encodes a point as a geohash.
+     * @param lat the latitude, from -90 to 90
+     * @param lon the longitude, from -180 to 180
+     * @param precision the number of characters of the geohash
+     * @return the geohash of the cell holding the point
+     */
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLon = -180, maxLon = 180;
+        char[] hash = new char[precision];
+        boolean evenBit = true;
+        for (int i = 0; i < precision; i++) {
+            int index = 0;
+            for (int bit = 0; bit < 5; bit++) {
+                index <<= 1;
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (lon >= mid) {
+                        index |= 1;
+                        minLon = mid;
+                    } else {
+                        maxLon = mid;
+                    }
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (lat >= mid) {
+                        index |= 1;
+                        minLat = mid;
+                    } else {
+                        maxLat = mid;
+                    }
+                }
+                evenBit = !evenBit;
+            }
+            hash[i] = BASE32[index];
+        }
+        return new String(hash);
+    }
+
+    /**
+     * Measures the great-circle distance between two points.
+     * @param lat1 the latitude of the first point
+     * @param lon1 the longitude of the first point
+     * @param lat2 the latitude of the second point
+     * @param lon2 the longitude of the second point
+     * @return the distance in kilometers
+     */
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    /**
+     * Finds geohash cells that together cover a circle, using the longest
+     * geohashes for which no more than 16 cells are needed. A circle that
+     * even the 32 single character cells cannot cover within that limit is
+     * covered by the empty geohash, the prefix of every geohash. Every point
+     * within the circle has one of the cells as prefix of its geohash.
+     * @param lat the latitude of the center
+     * @param lon the longitude of the center
+     * @param radiusKm the radius in kilometers
+     * @return the geohashes of the covering cells
+     */
+    public static Set<String> cover(double lat, double lon, double radiusKm) {
+        double dLat = radiusKm / KM_PER_DEGREE_LAT;
+        double minLat = Math.max(lat - dLat, -90);
+        double maxLat = Math.min(lat + dLat, 90);
+        double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        double dLon = maxLat == 90 || minLat == -90 ? 180
+                : Math.min(radiusKm / (KM_PER_DEGREE_LAT * cosLat), 180);
+        int precision = PRECISION;
+        while (rows(minLat, maxLat, precision) * columns(lon - dLon, lon + dLon, precision)
+                > MAX_CELLS) {
+            if (precision == 1) {
+                return Collections.singleton("");
+            }
+            precision--;
+        }
+        return cover(minLat, maxLat, lon - dLon, lon + dLon, precision);
+    }
+
+    private static Set<String> cover(double minLat, double maxLat, double minLon, double maxLon,
+            int precision) {
+        double height = cellHeight(precision);
+        double width = cellWidth(precision);
+        long firstRow = (long) Math.floor((minLat + 90) / height);
+        long firstColumn = (long) Math.floor((minLon + 180) / width);
+        long rows = rows(minLat, maxLat, precision);
+        long columns = columns(minLon, maxLon, precision);
+        long columnsAround = Math.round(360 / width);
+        Set<String> cells = new LinkedHashSet<>();
+        for (long row = firstRow; row < firstRow + rows; row++) {
+            for (long column = firstColumn; column < firstColumn + columns; column++) {
+                long wrapped = Math.floorMod(column, columnsAround);
+                cells.add(encode(-90 + (row + 0.5) * height,
+                        -180 + (wrapped + 0.5) * width, precision));
+            }
+        }
+        return cells;
+    }
+
+    private static long rows(double minLat, double maxLat, int precision) {
+        double height = cellHeight(precision);
+        long lastRow = Math.min((long) Math.floor((maxLat + 90) / height),
+                Math.round(180 / height) - 1);
+        return lastRow - (long) Math.floor((minLat + 90) / height) + 1;
+    }
+
+    private static long columns(double minLon, double maxLon, int precision) {
+        double width = cellWidth(precision);
+        long columns = (long) Math.floor((maxLon + 180) / width)
+                - (long) Math.floor((minLon + 180) / width) + 1;
+        return Math.min(columns, Math.round(360 / width));
+    }
+
+    private static double cellHeight(int precision) {
+        return 180 / Math.pow(2, 5 * precision / 2);
+    }
+
+    private static double cellWidth(int precision) {
+        return 360 / Math.pow(2, 5 * precision - 5 * precision / 2);
+    }
+}
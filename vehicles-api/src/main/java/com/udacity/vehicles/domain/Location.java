@@ -1,16 +1,19 @@
 package com.udacity.vehicles.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.annotations.ApiModelProperty;
 
+import javax.persistence.Column;
 import javax.persistence.Embeddable;
-import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 
 /**
  * Stores information about a given location.
  * Latitude and longitude must be provided, while other
- * location information must be gathered each time from
- * the maps API.
+ * location information is gathered from the maps API and
+ * stored along with a fingerprint of the coordinates it
+ * was resolved for. The geohash of the coordinates is
+ * stored to find locations near a point.
  */
 @Embeddable
 public class Location {
@@ -23,22 +26,25 @@ public class Location {
     @ApiModelProperty(example = "-73.935242")
     private Double lon;
 
-    @Transient
     @ApiModelProperty(example = "")
     private String address;
 
-    @Transient
     @ApiModelProperty(example = "")
     private String city;
 
-    @Transient
     @ApiModelProperty(example = "")
     private String state;
 
-    @Transient
     @ApiModelProperty(example = "")
     private String zip;
 
+    @JsonIgnore
+    private String addressFingerprint;
+
+    @JsonIgnore
+    @Column(length = GeoHash.PRECISION)
+    private String geohash;
+
     public Location() {
     }
 
@@ -86,4 +92,48 @@ public class Location {
     public void setZip(String zip) {
         this.zip = zip;
     }
+
+    /**
+     * Identifies the coordinates of this location.
+     * @return the latitude and longitude as text
+     */
+    public String fingerprint() {
+        return lat + "," + lon;
+    }
+
+    /**
+     * Tells whether the stored address was resolved for the current coordinates.
+     * @return true if the address does not need to be looked up again
+     */
+    public boolean hasResolvedAddress() {
+        return fingerprint().equals(addressFingerprint);
+    }
+
+    /**
+     * Stores the geohash of the current coordinates.
+     */
+    public void updateGeohash() {
+        geohash = lat == null || lon == null ? null : GeoHash.encode(lat, lon, GeoHash.PRECISION);
+    }
+
+    /**
+     * Measures the distance from this location to a point.
+     * @param lat the latitude of the point
+     * @param lon the longitude of the point
+     * @return the great-circle distance in kilometers
+     */
+    public double distanceKm(double lat, double lon) {
+        return GeoHash.distanceKm(this.lat, this.lon, lat, lon);
+    }
+
+    /**
+     * Removes the address, so it is looked up again for the current coordinates.
+     */
+    public void clearAddress() {
+        address = null;
+        city = null;
+        state = null;
+        zip = null;
+        addressFingerprint = null;
+    }
 }
@@ -0,0 +1,160 @@
+package com.udacity.vehicles.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import io.swagger.annotations.ApiModelProperty;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * Stores an amount of money as a currency and a whole number of the
+ * currency's minor units, e.g. USD 14500.00 as 1450000 cents. Amounts are
+ * compared and written as JSON without going through BigDecimal or String.
+ */
+@JsonSerialize(using = Money.Serializer.class)
+public final class Money implements Comparable<Money> {
+
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L};
+
+    private final Currency currency;
+    private final long minorUnits;
+
+    private Money(Currency currency, long minorUnits) {
+        this.currency = currency;
+        this.minorUnits = minorUnits;
+    }
+
+    /**
+     * Creates an amount of money, rounded half up to the currency's minor unit.
+     * @param currencyCode ISO 4217 code of the currency, e.g. USD
+     * @param amount the amount in major units, e.g. 14500.00
+     * @return the amount of money
+     * @throws IllegalArgumentException if the currency code is unknown
+     */
+    @JsonCreator
+    public static Money of(@JsonProperty("currency") String currencyCode,
+            @JsonProperty("amount") BigDecimal amount) {
+        Currency currency = Currency.getInstance(currencyCode);
+        return new Money(currency, amount.setScale(scaleOf(currency), RoundingMode.HALF_UP)
+                .unscaledValue().longValueExact());
+    }
+
+    /**
+     * Creates an amount of money from a number of minor units.
+     * @param currencyCode ISO 4217 code of the currency, e.g. USD
+     * @param minorUnits the amount in minor units, e.g. 1450000 cents
+     * @return the amount of money
+     * @throws IllegalArgumentException if the currency code is unknown
+     */
+    public static Money ofMinor(String currencyCode, long minorUnits) {
+        return new Money(Currency.getInstance(currencyCode), minorUnits);
+    }
+
+    @ApiModelProperty(example = "USD")
+    public String getCurrency() {
+        return currency.getCurrencyCode();
+    }
+
+    @ApiModelProperty(example = "14500.00")
+    public BigDecimal getAmount() {
+        return BigDecimal.valueOf(minorUnits, scaleOf(currency));
+    }
+
+    @JsonIgnore
+    public long getMinorUnits() {
+        return minorUnits;
+    }
+
+    /**
+     * Tells whether this amount is in the same currency as another.
+     * @param other the amount to compare with
+     * @return true if both amounts have the same currency
+     */
+    public boolean isSameCurrency(Money other) {
+        return currency.equals(other.currency);
+    }
+
+    /**
+     * Orders amounts by currency code, then by amount.
+     */
+    @Override
+    public int compareTo(Money other) {
+        int byCurrency = currency.getCurrencyCode().compareTo(other.currency.getCurrencyCode());
+        return byCurrency != 0 ? byCurrency : Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Money)) {
+            return false;
+        }
+        Money money = (Money) o;
+        return minorUnits == money.minorUnits && currency.equals(money.currency);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(currency, minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return currency.getCurrencyCode() + " " + getAmount().toPlainString();
+    }
+
+    private static int scaleOf(Currency currency) {
+        return Math.max(currency.getDefaultFractionDigits(), 0);
+    }
+
+    /**
+     * Writes an amount as {"currency":"USD","amount":14500.00}, formatting the
+     * amount straight from the minor units.
+     */
+    static final class Serializer extends StdSerializer<Money> {
+
+        Serializer() {
+            super(Money.class);
+        }
+
+        @Override
+        public void serialize(Money money, JsonGenerator gen, SerializerProvider provider)
+                throws IOException {
+            gen.writeStartObject();
+            gen.writeStringField("currency", money.currency.getCurrencyCode());
+            gen.writeFieldName("amount");
+            int scale = scaleOf(money.currency);
+            if (scale == 0) {
+                gen.writeNumber(money.minorUnits);
+            } else {
+                gen.writeNumber(decimal(money.minorUnits, scale));
+            }
+            gen.writeEndObject();
+        }
+
+        private static String decimal(long minorUnits, int scale) {
+            long unit = POWERS_OF_TEN[scale];
+            long major = Math.abs(minorUnits / unit);
+            long minor = Math.abs(minorUnits % unit);
+            StringBuilder text = new StringBuilder(24);
+            if (minorUnits < 0) {
+                text.append('-');
+            }
+            text.append(major).append('.');
+            for (long digit = unit / 10; digit > minor && digit > 1; digit /= 10) {
+                text.append('0');
+            }
+            return text.append(minor).toString();
+        }
+    }
+}
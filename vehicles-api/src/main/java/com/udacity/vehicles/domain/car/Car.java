@@ -1,8 +1,11 @@
 package com.udacity.vehicles.domain.car;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonProperty.Access;
 import com.udacity.vehicles.domain.Condition;
 import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.Money;
 import java.time.LocalDateTime;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
@@ -10,7 +13,13 @@ import javax.persistence.EntityListeners;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
 import javax.persistence.Transient;
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
@@ -22,14 +31,27 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 /**
  * Declares the Car class, related variables and methods.
+ * The columns cars are filtered by are indexed, as is the
+ * geohash cars near a point are found by. IDs are allocated from a
+ * sequence in blocks, so that inserts need no round trip per car and
+ * can be sent to the database in JDBC batches.
  */
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_car_manufacturer", columnList = "manufacturer_code"),
+        @Index(name = "idx_car_condition", columnList = "condition"),
+        @Index(name = "idx_car_model_year", columnList = "modelYear"),
+        @Index(name = "idx_car_mileage", columnList = "mileage"),
+        @Index(name = "idx_car_fuel_type", columnList = "fuelType"),
+        @Index(name = "idx_car_geohash", columnList = "geohash")
+})
 @EntityListeners(AuditingEntityListener.class)
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class Car {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "car_seq")
+    @SequenceGenerator(name = "car_seq", sequenceName = "car_seq", allocationSize = 50)
     @ApiModelProperty(example = "")
     private Long id;
 
@@ -54,8 +76,8 @@ public class Car {
     private Location location = new Location(0d, 0d);
 
     @Transient
-    @ApiModelProperty(example = "14500")
-    private String price;
+    @JsonProperty(access = Access.READ_ONLY)
+    private Money price;
 
     public Long getId() {
         return id;
@@ -105,11 +127,24 @@ public class Car {
         this.location = location;
     }
 
-    public String getPrice() {
+    /**
+     * Gets the price of the car, or null if it could not be retrieved.
+     * @return the price of the car, if known
+     */
+    public Money getPrice() {
         return price;
     }
 
-    public void setPrice(String price) {
+    public void setPrice(Money price) {
         this.price = price;
     }
+
+    /**
+     * Keeps the stored geohash in step with the coordinates.
+     */
+    @PrePersist
+    @PreUpdate
+    void updateGeohash() {
+        location.updateGeohash();
+    }
 }
@@ -0,0 +1,118 @@
+package com.udacity.vehicles.domain.car;
+
+import com.udacity.vehicles.domain.Condition;
+import io.swagger.annotations.ApiModelProperty;
+import java.util.ArrayList;
+import java.util.List;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * Declares the attributes to select cars by, bound from the query parameters
+ * of a car listing. Attributes left empty do not restrict the selection; the
+ * others become predicates on the indexed columns of the car table, so that
+ * the database does the filtering.
+ */
+public class CarFilter implements Specification<Car> {
+
+    private static final long serialVersionUID = 1L;
+
+    @ApiModelProperty(example = "101")
+    private Integer manufacturer;
+
+    private Condition condition;
+
+    @ApiModelProperty(example = "2015")
+    private Integer minModelYear;
+
+    @ApiModelProperty(example = "2019")
+    private Integer maxModelYear;
+
+    @ApiModelProperty(example = "50000")
+    private Integer maxMileage;
+
+    @ApiModelProperty(example = "Gasoline")
+    private String fuelType;
+
+    public Integer getManufacturer() {
+        return manufacturer;
+    }
+
+    public void setManufacturer(Integer manufacturer) {
+        this.manufacturer = manufacturer;
+    }
+
+    public Condition getCondition() {
+        return condition;
+    }
+
+    public void setCondition(Condition condition) {
+        this.condition = condition;
+    }
+
+    public Integer getMinModelYear() {
+        return minModelYear;
+    }
+
+    public void setMinModelYear(Integer minModelYear) {
+        this.minModelYear = minModelYear;
+    }
+
+    public Integer getMaxModelYear() {
+        return maxModelYear;
+    }
+
+    public void setMaxModelYear(Integer maxModelYear) {
+        this.maxModelYear = maxModelYear;
+    }
+
+    public Integer getMaxMileage() {
+        return maxMileage;
+    }
+
+    public void setMaxMileage(Integer maxMileage) {
+        this.maxMileage = maxMileage;
+    }
+
+    public String getFuelType() {
+        return fuelType;
+    }
+
+    public void setFuelType(String fuelType) {
+        this.fuelType = fuelType;
+    }
+
+    /**
+     * Builds the conjunction of the set attributes. The manufacturer is
+     * compared on the foreign key column, without joining its table.
+     * @return the predicate, or null if no attribute is set
+     */
+    @Override
+    public Predicate toPredicate(Root<Car> root, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Path<Details> details = root.get("details");
+        List<Predicate> predicates = new ArrayList<>();
+        if (manufacturer != null) {
+            predicates.add(cb.equal(details.get("manufacturer").get("code"), manufacturer));
+        }
+        if (condition != null) {
+            predicates.add(cb.equal(root.get("condition"), condition));
+        }
+        if (minModelYear != null) {
+            predicates.add(cb.greaterThanOrEqualTo(details.get("modelYear"), minModelYear));
+        }
+        if (maxModelYear != null) {
+            predicates.add(cb.lessThanOrEqualTo(details.get("modelYear"), maxModelYear));
+        }
+        if (maxMileage != null) {
+            predicates.add(cb.lessThanOrEqualTo(details.get("mileage"), maxMileage));
+        }
+        if (fuelType != null) {
+            predicates.add(cb.equal(details.get("fuelType"), fuelType));
+        }
+        return predicates.isEmpty() ? null : cb.and(predicates.toArray(new Predicate[0]));
+    }
+}
@@ -1,9 +1,100 @@
 package com.udacity.vehicles.domain.car;
 
+import com.udacity.vehicles.domain.Location;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+/**
+ * Reads and writes cars. The list queries fetch each car's manufacturer in
+ * the same statement; queries built from specifications load manufacturers
+ * from the second-level cache instead.
+ */
 @Repository
-public interface CarRepository extends JpaRepository<Car, Long> {
+public interface CarRepository extends JpaRepository<Car, Long>, JpaSpecificationExecutor<Car> {
 
+    /**
+     * Gets all cars, with their manufacturers.
+     * @return all cars
+     */
+    @Override
+    @Query("select c from Car c left join fetch c.details.manufacturer")
+    List<Car> findAll();
+
+    /**
+     * Gets the cars whose ID is greater than the given one, seeking on the
+     * primary key index so the cost does not grow with the position.
+     * @param id the ID number of the last car already seen
+     * @param pageable the number of cars to get and their ordering
+     * @return the next cars, and whether there are more after them
+     */
+    @Query("select c from Car c left join fetch c.details.manufacturer where c.id > :id")
+    Slice<Car> findByIdGreaterThan(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Gets the cars whose ID is less than the given one, seeking on the
+     * primary key index so the cost does not grow with the position.
+     * @param id the ID number of the first car already seen
+     * @param pageable the number of cars to get and their ordering
+     * @return the previous cars, and whether there are more before them
+     */
+    @Query("select c from Car c left join fetch c.details.manufacturer where c.id < :id")
+    Slice<Car> findByIdLessThan(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Gets the cars located in any of the given geohash cells, seeking on the
+     * geohash index with one prefix range per cell.
+     * @param cells the geohashes of the cells, of any precision
+     * @return the cars in the cells, in no particular order
+     */
+    default List<Car> findInGeohashCells(Collection<String> cells) {
+        return findAll((root, query, cb) -> {
+            Path<String> geohash = root.get("location").get("geohash");
+            return cb.or(cells.stream()
+                    .map(cell -> cb.like(geohash, cell + "%"))
+                    .toArray(Predicate[]::new));
+        });
+    }
+
+    /**
+     * Reads all cars in ID order through a database cursor, fetching rows in
+     * blocks instead of loading the whole table. Must be consumed, and closed,
+     * inside a transaction.
+     * @return the cars, in ID order
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select c from Car c left join fetch c.details.manufacturer order by c.id")
+    Stream<Car> streamAll();
+
+    /**
+     * Stores the resolved address of a car, unless the car has moved since
+     * the address was looked up.
+     * @param id the ID number of the car
+     * @param location the coordinates that were resolved, with their address
+     * @return the number of cars updated, 0 if the car was moved or deleted
+     */
+    @Transactional
+    @Modifying
+    @Query("update Car c set c.location.address = :#{#location.address},"
+            + " c.location.city = :#{#location.city},"
+            + " c.location.state = :#{#location.state},"
+            + " c.location.zip = :#{#location.zip},"
+            + " c.location.addressFingerprint = :#{#location.fingerprint()}"
+            + " where c.id = :id"
+            + " and c.location.lat = :#{#location.lat}"
+            + " and c.location.lon = :#{#location.lon}")
+    int updateAddress(@Param("id") Long id, @Param("location") Location location);
 }
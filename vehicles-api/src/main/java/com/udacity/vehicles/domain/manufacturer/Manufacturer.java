@@ -2,13 +2,21 @@ package com.udacity.vehicles.domain.manufacturer;
 
 import io.swagger.annotations.ApiModelProperty;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Entity;
 import javax.persistence.Id;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Declares class to hold car manufacturer information.
+ * Manufacturers are a small set that is only ever added to, so they
+ * are kept in the second-level cache and loaded without a query once
+ * they have been read.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY)
 public class Manufacturer {
 
     @Id
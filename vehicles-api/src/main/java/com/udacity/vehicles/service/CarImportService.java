@@ -0,0 +1,169 @@
+package com.udacity.vehicles.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Implements importing many vehicles at once, as when a dealer's inventory
+ * is onboarded. Vehicles are read one at a time from a JSON array or from
+ * newline delimited JSON, validated, and stored in chunks of one transaction
+ * each. Car IDs come from a pooled sequence and inserts are sent to the
+ * database in JDBC batches, so a chunk takes a handful of round trips rather
+ * than two per vehicle. Invalid rows are reported and do not stop the import.
+ */
+@Service
+public class CarImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CarImportService.class);
+
+    private final ObjectReader carReader;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ManufacturerRepository manufacturerRepository;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CarImportService(ObjectMapper objectMapper, Validator validator,
+            PlatformTransactionManager transactionManager,
+            ManufacturerRepository manufacturerRepository,
+            @Value("${vehicles.import.chunk-size:1000}") int chunkSize,
+            @Value("${vehicles.import.max-reported-errors:100}") int maxReportedErrors) {
+        this.carReader = objectMapper.readerFor(Car.class);
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.manufacturerRepository = manufacturerRepository;
+        this.chunkSize = chunkSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Imports the vehicles of a JSON array, or of JSON objects separated by
+     * whitespace such as newline delimited JSON. IDs, addresses and prices
+     * given in the input are ignored; addresses are resolved when the
+     * vehicles are first listed. Rows that cannot be bound or validated are
+     * rejected; malformed JSON ends the import after the rows read so far.
+     * @param json the vehicles to import
+     * @return the number of vehicles imported and the rejected rows
+     * @throws IOException if the input cannot be read
+     */
+    public ImportReport importCars(InputStream json) throws IOException {
+        Set<Integer> manufacturers = manufacturerRepository.findAll().stream()
+                .map(Manufacturer::getCode)
+                .collect(Collectors.toSet());
+        ImportReport report = new ImportReport(maxReportedErrors);
+        List<Car> chunk = new ArrayList<>(chunkSize);
+        List<Integer> rows = new ArrayList<>(chunkSize);
+        int row = 0;
+        try (MappingIterator<Car> cars = carReader.readValues(json)) {
+            while (cars.hasNextValue()) {
+                Car car;
+                try {
+                    car = cars.nextValue();
+                } catch (JsonMappingException e) {
+                    report.reject(row++, Collections.singletonList(e.getOriginalMessage()));
+                    continue;
+                }
+                List<String> errors = validate(car, manufacturers);
+                if (errors.isEmpty()) {
+                    chunk.add(car);
+                    rows.add(row);
+                } else {
+                    report.reject(row, errors);
+                }
+                row++;
+                if (chunk.size() == chunkSize) {
+                    store(chunk, rows, report);
+                    chunk.clear();
+                    rows.clear();
+                }
+            }
+        } catch (JsonParseException e) {
+            report.reject(row, Collections.singletonList("Malformed JSON: " + e.getOriginalMessage()));
+        }
+        store(chunk, rows, report);
+        logger.info("Imported {} cars, rejected {}", report.getImported(), report.getRejected());
+        return report;
+    }
+
+    private List<String> validate(Car car, Set<Integer> manufacturers) {
+        List<String> errors = validator.validate(car).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.toList());
+        Manufacturer manufacturer = car.getDetails().getManufacturer();
+        if (manufacturer != null && !manufacturers.contains(manufacturer.getCode())) {
+            errors.add("details.manufacturer: unknown manufacturer " + manufacturer.getCode());
+        }
+        return errors;
+    }
+
+    /**
+     * Stores a chunk of valid vehicles in one transaction. If the chunk
+     * fails, its vehicles are stored one by one so that only the failing
+     * rows are rejected.
+     */
+    private void store(List<Car> chunk, List<Integer> rows, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                chunk.forEach(this::persist);
+                entityManager.flush();
+                return null;
+            });
+            report.imported(chunk.size());
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Import chunk failed, retrying row by row", e);
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            Car car = chunk.get(i);
+            try {
+                transactionTemplate.execute(status -> {
+                    persist(car);
+                    entityManager.flush();
+                    return null;
+                });
+                report.imported(1);
+            } catch (RuntimeException e) {
+                report.reject(rows.get(i), Collections.singletonList(
+                        NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            }
+        }
+    }
+
+    private void persist(Car car) {
+        car.setId(null);
+        car.getLocation().clearAddress();
+        car.getDetails().setManufacturer(entityManager.getReference(Manufacturer.class,
+                car.getDetails().getManufacturer().getCode()));
+        entityManager.persist(car);
+    }
+}
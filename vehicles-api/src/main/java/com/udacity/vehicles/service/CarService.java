@@ -2,20 +2,43 @@ package com.udacity.vehicles.service;
 
 import com.udacity.vehicles.client.maps.MapsClient;
 import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.GeoHash;
 import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.Money;
 import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarFilter;
 import com.udacity.vehicles.domain.car.CarRepository;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import org.modelmapper.ModelMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.scheduler.Scheduler;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
 
 /**
  * Implements the car service create, read, update or delete information about vehicles, as well as
@@ -26,45 +49,165 @@ public class CarService {
 
     Logger logger = LoggerFactory.getLogger(CarService.class);
 
+    private static final int STREAM_CHUNK_SIZE = 100;
+
+    private static final String PRICE = "price";
+
     private final CarRepository repository;
-    private MapsClient mapsClient;
-    private PriceClient priceClient;
+    private final MapsClient mapsClient;
+    private final PriceClient priceClient;
+    private final int enrichmentConcurrency;
+    private final Scheduler blockingScheduler;
+    private final Set<String> geocoding = ConcurrentHashMap.newKeySet();
 
+    @PersistenceContext
+    private EntityManager entityManager;
 
-    public CarService(CarRepository repository, WebClient maps, WebClient pricing) {
-        logger.info("Initialize service maps client:" + maps.toString());
-        logger.info("Initialize service pricing client:" + pricing.toString());
+    public CarService(CarRepository repository, MapsClient mapsClient, PriceClient priceClient,
+            @Value("${vehicles.enrichment.concurrency:64}") int enrichmentConcurrency,
+            @Qualifier("blockingScheduler") Scheduler blockingScheduler) {
         this.repository = repository;
-        mapsClient = new MapsClient(maps, new ModelMapper());
-        priceClient = new PriceClient(pricing);
+        this.mapsClient = mapsClient;
+        this.priceClient = priceClient;
+        this.enrichmentConcurrency = enrichmentConcurrency;
+        this.blockingScheduler = blockingScheduler;
     }
 
     /**
-     * Gathers a list of all vehicles
+     * Gathers a list of all vehicles. Prices for all cars are fetched in
+     * batches, with at most enrichmentConcurrency batch requests in flight at
+     * any time. Addresses are read from the database; cars whose address has
+     * not been resolved yet are geocoded in the background.
      *
      * @return a list of all vehicles in the CarRepository
      */
     public List<Car> list() {
         List<Car> carList = repository.findAll();
-        List<Car> modifiedList = new ArrayList<>();
-        if (!carList.isEmpty()) {
-            for (Car car : carList) {
-                logger.info("Finding price for car id" + car.getId());
-                String price = priceClient.getPrice(car.getId());
-                car.setPrice(price);
-                logger.info("Found price" + price);
-
-                Location location = car.getLocation();
-                //Set the address
-                String address = mapsClient.getAddress(location).getAddress();
-                logger.info("Foud address :" + address);
-                location.setAddress(address);
-                car.setLocation(location);
-                modifiedList.add(car);
+        enrich(carList);
+        return carList;
+    }
+
+    /**
+     * Gathers the vehicles matching a filter and priced within a range, in
+     * the given order. The filter is evaluated by the database, so only the
+     * matching cars are read and enriched. Prices are only known once the
+     * cars are enriched, so the range and ordering by "price" are applied
+     * afterwards, on the typed prices; ordering by any other property is
+     * left to the database and breaks ties between equal prices. Cars with
+     * an unknown price come last.
+     *
+     * @param filter the attributes of the vehicles to gather
+     * @param range the prices of the vehicles to gather
+     * @param sort the order of the vehicles, which may include "price"
+     * @return the matching vehicles in the CarRepository priced within the range
+     */
+    public List<Car> list(CarFilter filter, PriceRange range, Sort sort) {
+        Sort.Order byPrice = sort.getOrderFor(PRICE);
+        List<Car> carList = repository.findAll(filter, Sort.by(sort.stream()
+                .filter(order -> !PRICE.equals(order.getProperty()))
+                .collect(Collectors.toList())));
+        enrich(carList);
+        if (range.isBounded()) {
+            carList.removeIf(car -> !range.contains(car.getPrice()));
+        }
+        if (byPrice != null) {
+            Comparator<Money> order = byPrice.isAscending()
+                    ? Comparator.naturalOrder() : Comparator.reverseOrder();
+            carList.sort(Comparator.comparing(Car::getPrice, Comparator.nullsLast(order)));
+        }
+        return carList;
+    }
+
+    /**
+     * Gathers one page of the vehicles matching a filter; the filter is
+     * evaluated by the database and only the cars on the page are enriched.
+     *
+     * @param filter the attributes of the vehicles to gather
+     * @param pageable the page number, page size and ordering
+     * @return the requested page of matching vehicles in the CarRepository
+     */
+    public Page<Car> list(CarFilter filter, Pageable pageable) {
+        Page<Car> page = repository.findAll(filter, pageable);
+        enrich(page.getContent());
+        return page;
+    }
+
+    /**
+     * Gathers the vehicles following the given ID, in ID order.
+     *
+     * @param after the ID number of the last car already seen
+     * @param size the maximum number of cars to gather
+     * @return the next vehicles, and whether there are more after them
+     */
+    public Slice<Car> listAfter(Long after, int size) {
+        Slice<Car> slice = repository.findByIdGreaterThan(after,
+                PageRequest.of(0, size, Sort.by(Sort.Direction.ASC, "id")));
+        enrich(slice.getContent());
+        return slice;
+    }
+
+    /**
+     * Gathers the vehicles preceding the given ID, in ID order.
+     *
+     * @param before the ID number of the first car already seen
+     * @param size the maximum number of cars to gather
+     * @return the previous vehicles, and whether there are more before them
+     */
+    public Slice<Car> listBefore(Long before, int size) {
+        Slice<Car> slice = repository.findByIdLessThan(before,
+                PageRequest.of(0, size, Sort.by(Sort.Direction.DESC, "id")));
+        List<Car> cars = new ArrayList<>(slice.getContent());
+        Collections.reverse(cars);
+        enrich(cars);
+        return new SliceImpl<>(cars, slice.getPageable(), slice.hasNext());
+    }
+
+    /**
+     * Gathers the vehicles within a radius of a point, nearest first. Only
+     * the cars in the geohash cells covering the circle are read, through
+     * the geohash index; their exact distance then decides.
+     *
+     * @param lat the latitude of the point
+     * @param lon the longitude of the point
+     * @param radiusKm the radius in kilometers
+     * @return the vehicles within the radius, ordered by distance
+     */
+    public List<Car> listNear(double lat, double lon, double radiusKm) {
+        Map<Car, Double> distances = new IdentityHashMap<>();
+        for (Car car : repository.findInGeohashCells(GeoHash.cover(lat, lon, radiusKm))) {
+            double distance = car.getLocation().distanceKm(lat, lon);
+            if (distance <= radiusKm) {
+                distances.put(car, distance);
             }
         }
+        List<Car> carList = new ArrayList<>(distances.keySet());
+        carList.sort(Comparator.comparingDouble(distances::get));
+        enrich(carList);
+        return carList;
+    }
 
-        return modifiedList;
+    /**
+     * Reads all vehicles through a database cursor and hands them to the sink
+     * in small enriched chunks, so that memory use stays constant however
+     * large the fleet is. Cars are detached once the sink has consumed them.
+     *
+     * @param sink receives each chunk of enriched vehicles, in ID order
+     */
+    @Transactional(readOnly = true)
+    public void stream(Consumer<List<Car>> sink) {
+        try (Stream<Car> cars = repository.streamAll()) {
+            List<Car> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+            Iterator<Car> iterator = cars.iterator();
+            while (iterator.hasNext()) {
+                chunk.add(iterator.next());
+                if (chunk.size() == STREAM_CHUNK_SIZE || !iterator.hasNext()) {
+                    enrich(chunk);
+                    sink.accept(chunk);
+                    chunk.forEach(entityManager::detach);
+                    chunk.clear();
+                }
+            }
+        }
     }
 
     /**
@@ -81,18 +224,8 @@ public class CarService {
 
             Optional<Car> optCar = repository.findById(id);
             car = optCar.get();
-
-            logger.info("Finding price for car id" + id);
-            String price = priceClient.getPrice(id);
-            car.setPrice(price);
-            logger.info("Found price" + price);
-
-            Location location = car.getLocation();
-            //Set the address
-            String address = mapsClient.getAddress(location).getAddress();
-            logger.info("Foud address :" + address);
-            location.setAddress(address);
-            car.setLocation(location);
+            car.setPrice(priceClient.getPrice(id));
+            geocodeAsync(Collections.singletonList(car));
 
         } catch (NoSuchElementException noSuchElementException) {
             logger.error("No Car found for the Id  " + id);
@@ -104,7 +237,9 @@ public class CarService {
     }
 
     /**
-     * Either creates or updates a vehicle, based on prior existence of car
+     * Either creates or updates a vehicle, based on prior existence of car.
+     * The address is looked up again in the background only when the car is
+     * new or its coordinates have changed.
      *
      * @param car A car object, which can be either new or existing
      * @return the new/updated car is stored in the repository
@@ -113,17 +248,28 @@ public class CarService {
 
         if (car.getId() != null && car.getId() > 0) {
             logger.info("Update : Car");
-            return repository.findById(car.getId())
+            priceClient.evict(car.getId());
+            Car updated = repository.findById(car.getId())
                     .map(carToBeUpdated -> {
                         carToBeUpdated.setDetails(car.getDetails());
-                        carToBeUpdated.setLocation(car.getLocation());
+                        if (!carToBeUpdated.getLocation().fingerprint()
+                                .equals(car.getLocation().fingerprint())) {
+                            car.getLocation().clearAddress();
+                            carToBeUpdated.setLocation(car.getLocation());
+                        }
                         carToBeUpdated.setCondition(car.getCondition());
                         carToBeUpdated.setModifiedAt( LocalDateTime.now());
                         return repository.save(carToBeUpdated);
                     }).orElseThrow(CarNotFoundException::new);
+            geocodeAsync(Collections.singletonList(updated));
+            return updated;
         }
         logger.info("Create : Car");
-        return repository.save(car);
+        car.getLocation().clearAddress();
+        Car saved = repository.save(car);
+        priceClient.evict(saved.getId());
+        geocodeAsync(Collections.singletonList(saved));
+        return saved;
     }
 
     /**
@@ -137,10 +283,63 @@ public class CarService {
             Optional<Car> optCar = repository.findById(id);
             car = optCar.get();
             repository.delete(car);
+            priceClient.evict(id);
         } catch (NoSuchElementException noSuchElementException) {
             logger.error("No Car found for the Id  " + id);
             noSuchElementException.printStackTrace();
             throw new CarNotFoundException("No Car found for the Id  " + id);
         }
     }
+
+    /**
+     * Sets the prices of the given cars, fetched in batches, and starts the
+     * lookup of addresses that have not been resolved yet.
+     *
+     * @param cars the cars to enrich
+     */
+    private void enrich(List<Car> cars) {
+        List<Long> ids = cars.stream().map(Car::getId).collect(Collectors.toList());
+        Map<Long, Money> prices = priceClient.getPricesAsync(ids, enrichmentConcurrency).block();
+        for (Car car : cars) {
+            car.setPrice(prices.get(car.getId()));
+        }
+        geocodeAsync(cars);
+    }
+
+    /**
+     * Resolves the addresses of the given cars that have none for their
+     * current coordinates, without blocking the caller, and stores them.
+     * A stored address is discarded if the car moved in the meantime. Only
+     * one lookup at a time runs for the same car and coordinates, so a car
+     * that moves while its old coordinates are looked up is looked up again.
+     *
+     * @param cars the cars whose addresses may need to be looked up
+     */
+    void geocodeAsync(List<Car> cars) {
+        List<Car> unresolved = new ArrayList<>();
+        List<Location> locations = new ArrayList<>();
+        List<String> keys = new ArrayList<>();
+        for (Car car : cars) {
+            Location location = car.getLocation();
+            String key = car.getId() + "@" + location.fingerprint();
+            if (!location.hasResolvedAddress() && geocoding.add(key)) {
+                unresolved.add(car);
+                locations.add(new Location(location.getLat(), location.getLon()));
+                keys.add(key);
+            }
+        }
+        if (unresolved.isEmpty()) {
+            return;
+        }
+        mapsClient.getAddressesAsync(locations, enrichmentConcurrency)
+                .publishOn(blockingScheduler)
+                .doFinally(signal -> geocoding.removeAll(keys))
+                .subscribe(resolved -> {
+                    for (int i = 0; i < unresolved.size(); i++) {
+                        if (resolved.get(i).getAddress() != null) {
+                            repository.updateAddress(unresolved.get(i).getId(), resolved.get(i));
+                        }
+                    }
+                }, e -> logger.warn("Could not store resolved addresses", e));
+    }
 }
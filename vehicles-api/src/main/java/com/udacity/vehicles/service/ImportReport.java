@@ -0,0 +1,70 @@
+package com.udacity.vehicles.service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Declares the outcome of a bulk import: how many vehicles were stored, how
+ * many were rejected, and why. Only the first rejected rows are listed, so
+ * that a broken file does not produce a report as large as itself.
+ */
+public class ImportReport {
+
+    private final int maxErrors;
+    private int imported;
+    private int rejected;
+    private final List<RowError> errors = new ArrayList<>();
+
+    ImportReport(int maxErrors) {
+        this.maxErrors = maxErrors;
+    }
+
+    public int getImported() {
+        return imported;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    void imported(int count) {
+        imported += count;
+    }
+
+    void reject(int row, List<String> messages) {
+        rejected++;
+        if (errors.size() < maxErrors) {
+            errors.add(new RowError(row, messages));
+        }
+    }
+
+    /**
+     * Declares why one row of the input was rejected.
+     */
+    public static class RowError {
+
+        private final int row;
+        private final List<String> errors;
+
+        RowError(int row, List<String> errors) {
+            this.row = row;
+            this.errors = errors;
+        }
+
+        /**
+         * @return the position of the row in the input, starting at 0
+         */
+        public int getRow() {
+            return row;
+        }
+
+        public List<String> getErrors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.domain.Money;
+
+/**
+ * Declares an inclusive range of prices to select vehicles by. Either bound
+ * may be left open. Prices in another currency than a bound, and unknown
+ * prices, are outside any range with a bound.
+ */
+public final class PriceRange {
+
+    /**
+     * The range of all prices, known or not.
+     */
+    public static final PriceRange ANY = new PriceRange(null, null);
+
+    private final Money min;
+    private final Money max;
+
+    private PriceRange(Money min, Money max) {
+        this.min = min;
+        this.max = max;
+    }
+
+    /**
+     * Creates a range of prices.
+     * @param min the lowest price in the range, or null for no lower bound
+     * @param max the highest price in the range, or null for no upper bound
+     * @return the range of prices
+     */
+    public static PriceRange between(Money min, Money max) {
+        return min == null && max == null ? ANY : new PriceRange(min, max);
+    }
+
+    public boolean isBounded() {
+        return min != null || max != null;
+    }
+
+    /**
+     * Tells whether a price lies within this range.
+     * @param price the price to check, or null if unknown
+     * @return true if the price lies within the range
+     */
+    public boolean contains(Money price) {
+        if (!isBounded()) {
+            return true;
+        }
+        if (price == null) {
+            return false;
+        }
+        if (min != null && (!min.isSameCurrency(price) || price.getMinorUnits() < min.getMinorUnits())) {
+            return false;
+        }
+        return max == null
+                || (max.isSameCurrency(price) && price.getMinorUnits() <= max.getMinorUnits());
+    }
+}
@@ -0,0 +1,106 @@
+package com.udacity.vehicles.service;
+
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Implements the car service for the reactive API. Repository access is
+ * blocking, so it runs on a bounded scheduler sized to the connection pool;
+ * prices are fetched without blocking, and no thread waits on the pricing
+ * or maps services. Writes go through the CarService, on the same scheduler.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveCarService {
+
+    private final CarService carService;
+    private final CarRepository repository;
+    private final PriceClient priceClient;
+    private final Scheduler jdbcScheduler;
+    private final int enrichmentConcurrency;
+
+    public ReactiveCarService(CarService carService, CarRepository repository,
+            PriceClient priceClient, @Qualifier("jdbcScheduler") Scheduler jdbcScheduler,
+            @Value("${vehicles.enrichment.concurrency:64}") int enrichmentConcurrency) {
+        this.carService = carService;
+        this.repository = repository;
+        this.priceClient = priceClient;
+        this.jdbcScheduler = jdbcScheduler;
+        this.enrichmentConcurrency = enrichmentConcurrency;
+    }
+
+    /**
+     * Gathers all vehicles, with prices fetched in batches.
+     *
+     * @return the vehicles in the CarRepository
+     */
+    public Flux<Car> list() {
+        return Mono.fromCallable(repository::findAll)
+                .subscribeOn(jdbcScheduler)
+                .flatMap(this::enrich)
+                .flatMapIterable(cars -> cars);
+    }
+
+    /**
+     * Gets car information by ID.
+     *
+     * @param id the ID number of the car to gather information on
+     * @return the requested car's information, including location and price,
+     *   or a CarNotFoundException if there is no such car
+     */
+    public Mono<Car> findById(Long id) {
+        return Mono.fromCallable(() -> repository.findById(id))
+                .subscribeOn(jdbcScheduler)
+                .map(optCar -> optCar.orElseThrow(
+                        () -> new CarNotFoundException("No Car found for the Id  " + id)))
+                .flatMap(car -> priceClient.getPriceAsync(id)
+                        .doOnNext(car::setPrice)
+                        .thenReturn(car))
+                .doOnNext(car -> carService.geocodeAsync(Collections.singletonList(car)));
+    }
+
+    /**
+     * Either creates or updates a vehicle, based on prior existence of car.
+     *
+     * @param car A car object, which can be either new or existing
+     * @return the new/updated car
+     */
+    public Mono<Car> save(Car car) {
+        return Mono.fromCallable(() -> carService.save(car))
+                .subscribeOn(jdbcScheduler);
+    }
+
+    /**
+     * Deletes a given car by ID.
+     *
+     * @param id the ID number of the car to delete
+     * @return completion, or a CarNotFoundException if there is no such car
+     */
+    public Mono<Void> delete(Long id) {
+        return Mono.<Void>fromRunnable(() -> carService.delete(id))
+                .subscribeOn(jdbcScheduler);
+    }
+
+    private Mono<List<Car>> enrich(List<Car> cars) {
+        List<Long> ids = cars.stream().map(Car::getId).collect(Collectors.toList());
+        return priceClient.getPricesAsync(ids, enrichmentConcurrency)
+                .map(prices -> {
+                    for (Car car : cars) {
+                        car.setPrice(prices.get(car.getId()));
+                    }
+                    carService.geocodeAsync(cars);
+                    return cars;
+                });
+    }
+}
@@ -0,0 +1,81 @@
+package com.udacity.vehicles;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Implements a local HTTP stub standing in for the pricing and maps services,
+ * answering every request after a fixed latency and recording how many
+ * requests it served and how many were in flight at once.
+ */
+public class StubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+
+    /**
+     * Starts a stub on a free local port.
+     * @param latencyMs how long to wait before answering each request
+     * @param responder creates the JSON response body from the request body
+     * @throws IOException if the server cannot be started
+     */
+    public StubServer(long latencyMs, Function<String, String> responder) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> handle(exchange, latencyMs, responder));
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange, long latencyMs, Function<String, String> responder)
+            throws IOException {
+        hits.incrementAndGet();
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try (InputStream in = exchange.getRequestBody(); OutputStream out = exchange.getResponseBody()) {
+            String request = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            Thread.sleep(latencyMs);
+            byte[] body = responder.apply(request).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            out.write(body);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    public String getEndpoint() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    public WebClient webClient() {
+        return WebClient.create(getEndpoint());
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -1,13 +1,23 @@
 package com.udacity.vehicles.api;
 
 import static org.hamcrest.CoreMatchers.allOf;
+import static org.hamcrest.CoreMatchers.containsString;
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -19,13 +29,20 @@ import com.udacity.vehicles.client.maps.MapsClient;
 import com.udacity.vehicles.client.prices.PriceClient;
 import com.udacity.vehicles.domain.Condition;
 import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.Money;
 import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarFilter;
 import com.udacity.vehicles.domain.car.Details;
 import com.udacity.vehicles.domain.manufacturer.Manufacturer;
 import com.udacity.vehicles.service.CarService;
+import com.udacity.vehicles.service.PriceRange;
+import java.math.BigDecimal;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -35,6 +52,11 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.json.JacksonTester;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
@@ -74,7 +96,7 @@ public class CarControllerTest {
         car.setId(1L);
         given(carService.save(any())).willReturn(car);
         given(carService.findById(any())).willReturn(car);
-        given(carService.list()).willReturn(Collections.singletonList(car));
+        given(carService.list(any(), any(), any())).willReturn(Collections.singletonList(car));
     }
 
     /**
@@ -136,6 +158,203 @@ public class CarControllerTest {
                                 is(getCar().getDetails().getManufacturer().getName()))));
     }
 
+    /**
+     * Tests that price bounds and ordering are passed on as typed values,
+     * and that prices are written as currency and amount.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsByPrice() throws Exception {
+        Car car = getCar();
+        car.setId(1L);
+        car.setPrice(Money.of("USD", new BigDecimal("14500")));
+        given(carService.list(any(), any(), any())).willReturn(Collections.singletonList(car));
+
+        mvc.perform(get(new URI("/cars?minPrice=10000&maxPrice=20000&sort=price,desc")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.carList[0].price.currency", is("USD")))
+                .andExpect(jsonPath("$._embedded.carList[0].price.amount", is(14500.0)));
+
+        verify(carService).list(any(),
+                argThat(range -> range.contains(Money.of("USD", new BigDecimal("10000")))
+                        && range.contains(Money.of("USD", new BigDecimal("20000")))
+                        && !range.contains(Money.of("USD", new BigDecimal("20000.01")))
+                        && !range.contains(Money.of("EUR", new BigDecimal("15000")))),
+                eq(Sort.by(Sort.Direction.DESC, "price")));
+    }
+
+    /**
+     * Tests that attribute filters are bound from the query parameters and
+     * passed on to the paged listing, and kept in its links.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsByAttributes() throws Exception {
+        Car car = getCar();
+        car.setId(1L);
+        given(carService.list(any(CarFilter.class), any(Pageable.class))).willReturn(
+                new PageImpl<>(Collections.singletonList(car), PageRequest.of(0, 20), 1));
+
+        mvc.perform(get(new URI("/cars?page=0&manufacturer=101&condition=USED"
+                + "&minModelYear=2015&maxMileage=50000&fuelType=Gasoline")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.self.href", containsString("manufacturer=101")));
+
+        verify(carService).list(
+                argThat((CarFilter filter) -> filter.getManufacturer() == 101
+                        && filter.getCondition() == Condition.USED
+                        && filter.getMinModelYear() == 2015
+                        && filter.getMaxModelYear() == null
+                        && filter.getMaxMileage() == 50000
+                        && "Gasoline".equals(filter.getFuelType())),
+                any(Pageable.class));
+    }
+
+    /**
+     * Tests that the paged listing rejects price bounds and ordering by
+     * price, which only the unpaged listing applies.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listPageRejectsPrice() throws Exception {
+        mvc.perform(get(new URI("/cars?page=0&sort=price")))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(new URI("/cars?page=0&maxPrice=20000")))
+                .andExpect(status().isBadRequest());
+        verify(carService, never()).list(any(CarFilter.class), any(Pageable.class));
+    }
+
+    /**
+     * Tests that ordering by a property vehicles do not store is rejected,
+     * paged or not, instead of failing in the query.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listRejectsUnknownSort() throws Exception {
+        mvc.perform(get(new URI("/cars?sort=colour,desc")))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(new URI("/cars?sort=price.amount")))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(new URI("/cars?page=0&sort=details.colour")))
+                .andExpect(status().isBadRequest());
+        verify(carService, never()).list(any(CarFilter.class), any(PriceRange.class), any(Sort.class));
+        verify(carService, never()).list(any(CarFilter.class), any(Pageable.class));
+
+        given(carService.list(any(CarFilter.class), any(Pageable.class))).willReturn(
+                new PageImpl<>(Collections.emptyList()));
+        mvc.perform(get(new URI("/cars?page=0&sort=details.modelYear,desc")))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that cars near a point are listed as returned by the service,
+     * and that an invalid radius is rejected.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsNear() throws Exception {
+        Car car = getCar();
+        car.setId(4L);
+        given(carService.listNear(40.73, -73.93, 2.5)).willReturn(Collections.singletonList(car));
+
+        mvc.perform(get(new URI("/cars/near?lat=40.73&lon=-73.93&radiusKm=2.5")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._embedded.carList[0].id", is(4)));
+        mvc.perform(get(new URI("/cars/near?lat=40.73&lon=-73.93&radiusKm=0")))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that a price bound in an unknown currency is rejected.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsRejectsUnknownCurrency() throws Exception {
+        mvc.perform(get(new URI("/cars?minPrice=10000&currency=XYZ")))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Tests that a cursor read links to the cars after the last one returned.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsAfterCursor() throws Exception {
+        Car car = getCar();
+        car.setId(3L);
+        given(carService.listAfter(2L, 1)).willReturn(
+                new SliceImpl<>(Collections.singletonList(car), PageRequest.of(0, 1), true));
+
+        mvc.perform(get(new URI("/cars?after=2&size=1")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$._links.next.href", containsString("after=3")))
+                .andExpect(jsonPath("$._links.prev.href", containsString("before=3")));
+    }
+
+    /**
+     * Tests that cursor reads reject sizes out of range and cursors mixed
+     * with page numbers or with each other.
+     *
+     * @throws Exception if the read operation of the vehicle list fails
+     */
+    @Test
+    public void listCarsRejectsInvalidCursor() throws Exception {
+        mvc.perform(get(new URI("/cars?after=2&size=0")))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(new URI("/cars?before=5&size=-1")))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(new URI("/cars?after=2&size=1000000")))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(new URI("/cars?page=1&after=5")))
+                .andExpect(status().isBadRequest());
+        mvc.perform(get(new URI("/cars?after=2&before=5")))
+                .andExpect(status().isBadRequest());
+        verify(carService, never()).listAfter(any(), anyInt());
+        verify(carService, never()).listBefore(any(), anyInt());
+    }
+
+    /**
+     * Tests that streaming writes one JSON document per car and line, for
+     * every chunk, and is not limited in time.
+     *
+     * @throws Exception if the stream of vehicles fails
+     */
+    @Test
+    public void streamCars() throws Exception {
+        List<Car> cars = new ArrayList<>();
+        for (long id = 1; id <= 150; id++) {
+            Car car = getCar();
+            car.setId(id);
+            cars.add(car);
+        }
+        willAnswer(invocation -> {
+            Consumer<List<Car>> sink = invocation.getArgument(0);
+            sink.accept(cars.subList(0, 100));
+            sink.accept(cars.subList(100, 150));
+            return null;
+        }).given(carService).stream(any());
+
+        MvcResult result = mvc.perform(get(new URI("/cars/stream")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout(), is(-1L));
+
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        String[] lines = body.split("\n");
+        assertThat(lines.length, is(150));
+        Car last = new ObjectMapper().readValue(lines[149], Car.class);
+        assertThat(last.getId(), is(150L));
+        assertThat(last.getDetails().getModel(), is("Impala"));
+    }
 
     /**
      * Tests the read operation for a single car by ID.
@@ -188,7 +407,7 @@ public class CarControllerTest {
         car.setId(2L);
         given(carService.save(any())).willReturn(car);
         given(carService.findById(any())).willReturn(car);
-        given(carService.list()).willReturn(Collections.singletonList(car));
+        given(carService.list(any(), any(), any())).willReturn(Collections.singletonList(car));
 
         MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/cars/{id}", "2"))
                 .andExpect(status().isOk())
@@ -217,6 +436,28 @@ public class CarControllerTest {
                 .andReturn();
     }
 
+    /**
+     * Tests that a bulk import of newline delimited JSON reports the
+     * imported and the rejected rows.
+     *
+     * @throws Exception if the bulk import fails
+     */
+    @Test
+    public void bulkImportCars() throws Exception {
+        Car invalid = getCar();
+        invalid.getDetails().setModel(null);
+        String body = json.write(getCar()).getJson() + "\n" + json.write(invalid).getJson() + "\n";
+
+        mvc.perform(post("/cars/bulk")
+                .content(body)
+                .contentType("application/x-ndjson"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported", is(1)))
+                .andExpect(jsonPath("$.rejected", is(1)))
+                .andExpect(jsonPath("$.errors[0].row", is(1)))
+                .andExpect(jsonPath("$.errors[0].errors[0]", is("details.model: must not be blank")));
+    }
+
 
     /**
      * Creates an example Car object for use in testing.
@@ -0,0 +1,152 @@
+package com.udacity.vehicles.api;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.Money;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.Details;
+import com.udacity.vehicles.domain.manufacturer.Manufacturer;
+import com.udacity.vehicles.service.CarNotFoundException;
+import com.udacity.vehicles.service.ReactiveCarService;
+import java.math.BigDecimal;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the ReactiveCarController class.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@ActiveProfiles("reactive")
+@AutoConfigureWebTestClient
+public class ReactiveCarControllerTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @MockBean
+    private ReactiveCarService carService;
+
+    @MockBean
+    private PriceClient priceClient;
+
+    @MockBean
+    private MapsClient mapsClient;
+
+    /**
+     * Creates pre-requisites for testing, such as an example car.
+     */
+    @Before
+    public void setup() {
+        Car car = getCar();
+        car.setId(1L);
+        car.setPrice(Money.of("USD", BigDecimal.valueOf(15000)));
+        given(carService.save(any())).willReturn(Mono.just(car));
+        given(carService.findById(1L)).willReturn(Mono.just(car));
+        given(carService.findById(2L)).willReturn(Mono.error(new CarNotFoundException()));
+        given(carService.list()).willReturn(Flux.just(car));
+        given(carService.delete(1L)).willReturn(Mono.empty());
+    }
+
+    /**
+     * Tests that the vehicle list is returned as a JSON array of cars.
+     */
+    @Test
+    public void listCars() {
+        client.get().uri("/cars").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[0].price.currency").isEqualTo("USD")
+                .jsonPath("$[0].price.amount").isEqualTo(15000.0)
+                .jsonPath("$[0].details.model").isEqualTo("Impala");
+    }
+
+    /**
+     * Tests the retrieval of a single vehicle by ID, and of an unknown one.
+     */
+    @Test
+    public void findCar() {
+        client.get().uri("/cars/1").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(1)
+                .jsonPath("$.location.lat").isEqualTo(40.730610);
+        client.get().uri("/cars/2").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    /**
+     * Tests for successful creation of new car in the system, and for the
+     * rejection of an invalid one.
+     */
+    @Test
+    public void createCar() {
+        client.post().uri("/cars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .syncBody(getCar())
+                .exchange()
+                .expectStatus().isCreated()
+                .expectHeader().valueMatches("Location", ".*/cars/1");
+
+        Car invalid = getCar();
+        invalid.setCondition(null);
+        client.post().uri("/cars")
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .syncBody(invalid)
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors[0]").isEqualTo("condition: must not be null");
+    }
+
+    /**
+     * Tests the deletion of a single car by ID.
+     */
+    @Test
+    public void deleteCar() {
+        client.delete().uri("/cars/1").exchange()
+                .expectStatus().isNoContent();
+    }
+
+    /**
+     * Creates an example Car object for use in testing.
+     *
+     * @return an example Car object
+     */
+    private Car getCar() {
+        Car car = new Car();
+        car.setLocation(new Location(40.730610, -73.935242));
+        Details details = new Details();
+        Manufacturer manufacturer = new Manufacturer(101, "Chevrolet");
+        details.setManufacturer(manufacturer);
+        details.setModel("Impala");
+        details.setMileage(32280);
+        details.setExternalColor("white");
+        details.setBody("sedan");
+        details.setEngine("3.6L V6");
+        details.setFuelType("Gasoline");
+        details.setModelYear(2018);
+        details.setProductionYear(2018);
+        details.setNumberOfDoors(4);
+        car.setDetails(details);
+        car.setCondition(Condition.USED);
+        return car;
+    }
+}
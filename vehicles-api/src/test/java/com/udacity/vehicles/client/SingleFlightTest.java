@@ -0,0 +1,53 @@
+package com.udacity.vehicles.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the SingleFlight coalescing of lookups.
+ */
+public class SingleFlightTest {
+
+    private final SingleFlight<Long, String> flights = new SingleFlight<>();
+
+    /**
+     * Tests that a fetch throwing instead of returning a Mono fails its
+     * caller and releases the key, so the next caller fetches again.
+     */
+    @Test
+    public void fetchThrowingReleasesKey() {
+        try {
+            flights.execute(1L, () -> {
+                throw new IllegalStateException("down");
+            }).block();
+            fail("Expected the fetch to fail");
+        } catch (IllegalStateException e) {
+            assertEquals("down", e.getMessage());
+        }
+        assertEquals(0, flights.inFlight());
+        assertEquals("one", flights.execute(1L, () -> Mono.just("one")).block());
+    }
+
+    /**
+     * Tests that a bulk fetch throwing instead of returning a Mono leaves
+     * its keys out and releases them.
+     */
+    @Test
+    public void bulkFetchThrowingReleasesKeys() {
+        Map<Long, String> values = flights.executeAll(Arrays.asList(1L, 2L), ids -> {
+            throw new IllegalStateException("down");
+        }).block();
+        assertTrue(values.isEmpty());
+        assertEquals(0, flights.inFlight());
+        assertEquals(Collections.singletonMap(2L, "two"), flights.executeAll(
+                Collections.singletonList(2L), ids -> Mono.just(Collections.singletonMap(2L, "two")))
+                .block());
+    }
+}
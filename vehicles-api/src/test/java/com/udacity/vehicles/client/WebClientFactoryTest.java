@@ -0,0 +1,98 @@
+package com.udacity.vehicles.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.udacity.vehicles.StubServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the connection pool and timeouts of the WebClientFactory.
+ */
+public class WebClientFactoryTest {
+
+    private StubServer stub;
+    private MockEnvironment environment;
+    private SimpleMeterRegistry meterRegistry;
+    private WebClientFactory factory;
+
+    @Before
+    public void setup() throws Exception {
+        stub = new StubServer(200, request -> "{}");
+        environment = new MockEnvironment();
+        meterRegistry = new SimpleMeterRegistry();
+        factory = new WebClientFactory(WebClient.builder(), environment, meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        factory.destroy();
+        stub.close();
+    }
+
+    /**
+     * Tests that requests beyond the pool size wait for a free connection.
+     */
+    @Test
+    public void poolBoundsConcurrentConnections() {
+        environment.setProperty("stub.client.max-connections", "2");
+        WebClient client = factory.create("stub", stub.getEndpoint());
+
+        Flux.range(0, 6)
+                .flatMap(i -> client.get().uri("/").retrieve().bodyToMono(String.class))
+                .blockLast();
+
+        assertEquals(6, stub.getHits());
+        assertEquals(2, stub.getPeakInFlight());
+    }
+
+    /**
+     * Tests that requests waiting longer than the acquire timeout for a
+     * connection fail and are counted, and that no wait is left pending.
+     */
+    @Test
+    public void poolCountsAcquireTimeouts() {
+        environment.setProperty("stub.client.max-connections", "1");
+        environment.setProperty("stub.client.acquire-timeout-ms", "50");
+        WebClient client = factory.create("stub", stub.getEndpoint());
+
+        Flux.range(0, 3)
+                .flatMap(i -> client.get().uri("/").retrieve().bodyToMono(String.class)
+                        .onErrorResume(e -> Mono.empty()))
+                .blockLast();
+
+        assertEquals(1, stub.getHits());
+        assertEquals(2, meterRegistry.get("http.client.pool.acquire.timeouts")
+                .tag("client", "stub").counter().count(), 0);
+        assertEquals(0, meterRegistry.get("http.client.pool.pending")
+                .tag("client", "stub").gauge().value(), 0);
+        assertEquals(1, meterRegistry.get("http.client.pool.max")
+                .tag("client", "stub").gauge().value(), 0);
+    }
+
+    /**
+     * Tests that a response slower than the read timeout fails the request.
+     */
+    @Test
+    public void slowResponseTimesOut() {
+        environment.setProperty("stub.client.read-timeout-ms", "50");
+        WebClient client = factory.create("stub", stub.getEndpoint());
+
+        try {
+            client.get().uri("/").retrieve().bodyToMono(String.class).block();
+            fail("Expected a read timeout");
+        } catch (RuntimeException e) {
+            assertTrue(e.toString(), Exceptions.unwrap(e) instanceof ReadTimeoutException);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.udacity.vehicles.client.maps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import com.udacity.vehicles.domain.Location;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Implements testing of the grid cell quantization of the AddressCache.
+ */
+public class AddressCacheTest {
+
+    private AddressCache cache;
+    private Address address;
+
+    @Before
+    public void setup() {
+        cache = new AddressCache(3, 1 << 20, new SimpleMeterRegistry());
+        address = new Address();
+        address.setAddress("777 Brockton Avenue");
+        cache.put(new Location(40.730610, -73.935242), address);
+    }
+
+    /**
+     * Tests that locations rounding to the same cell share the cached address.
+     */
+    @Test
+    public void nearbyLocationHitsSameCell() {
+        assertSame(address, cache.get(new Location(40.730899, -73.935399)));
+        assertEquals(1, cache.stats().hitCount());
+    }
+
+    /**
+     * Tests that locations in a neighbouring cell are not served the cached address.
+     */
+    @Test
+    public void distantLocationMisses() {
+        assertNull(cache.get(new Location(40.732610, -73.935242)));
+        assertNull(cache.get(new Location(-40.730610, 73.935242)));
+        assertEquals(2, cache.stats().missCount());
+    }
+}
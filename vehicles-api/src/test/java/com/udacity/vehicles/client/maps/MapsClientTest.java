@@ -0,0 +1,78 @@
+package com.udacity.vehicles.client.maps;
+
+import static org.junit.Assert.assertEquals;
+
+import com.udacity.vehicles.StubServer;
+import com.udacity.vehicles.domain.Location;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the request coalescing of the MapsClient.
+ */
+public class MapsClientTest {
+
+    private static final String ADDRESS =
+            "{\"address\":\"777 Brockton Avenue\",\"city\":\"Abington\",\"state\":\"MA\",\"zip\":\"2351\"}";
+
+    private StubServer maps;
+    private MapsClient client;
+
+    @Before
+    public void setup() throws Exception {
+        maps = new StubServer(200, request -> request.isEmpty()
+                ? ADDRESS
+                : "[" + String.join(",", Collections.nCopies(
+                        request.split("\"lat\"").length - 1, ADDRESS)) + "]");
+        client = new MapsClient(maps.webClient(),
+                new AddressCache(4, 1 << 20, new SimpleMeterRegistry()), 100, 5000,
+                CircuitBreakerRegistry.ofDefaults());
+    }
+
+    @After
+    public void tearDown() {
+        maps.close();
+    }
+
+    /**
+     * Tests that concurrent lookups of the same coordinates share one request.
+     */
+    @Test
+    public void concurrentLookupsShareOneRequest() {
+        List<Mono<Location>> lookups = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lookups.add(client.getAddressAsync(new Location(40.730610, -73.935242)));
+        }
+
+        List<Location> locations = Flux.merge(lookups).collectList().block();
+
+        assertEquals(1, maps.getHits());
+        locations.forEach(location -> assertEquals("777 Brockton Avenue", location.getAddress()));
+    }
+
+    /**
+     * Tests that concurrent batch lookups request each grid cell only once,
+     * and that a single lookup joins a batch already requesting its cell.
+     */
+    @Test
+    public void concurrentBatchesShareCells() {
+        Mono<List<Location>> first = client.getAddressesAsync(Arrays.asList(
+                new Location(40.730610, -73.935242), new Location(41.0, -73.0)), 4);
+        Mono<List<Location>> second = client.getAddressesAsync(Arrays.asList(
+                new Location(41.0, -73.0), new Location(40.730610, -73.935242)), 4);
+        Mono<Location> single = client.getAddressAsync(new Location(41.0, -73.0));
+
+        Mono.when(first, second, single).block();
+
+        assertEquals(1, maps.getHits());
+    }
+}
@@ -0,0 +1,144 @@
+package com.udacity.vehicles.client.prices;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import com.udacity.vehicles.StubServer;
+import com.udacity.vehicles.domain.Money;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import reactor.core.publisher.Mono;
+
+/**
+ * Implements testing of the timeout and circuit breaker of the PriceClient
+ * against a pricing service that answers too slowly, of the coalescing of
+ * concurrent lookups, and of evictions racing a batch request.
+ */
+public class PriceClientTest {
+
+    private StubServer pricing;
+    private CircuitBreakerRegistry circuitBreakers;
+    private PriceClient client;
+
+    @Before
+    public void setup() throws Exception {
+        pricing = new StubServer(500, request -> "{\"currency\":\"USD\",\"price\":1000}");
+        circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .ringBufferSizeInClosedState(2)
+                .ringBufferSizeInHalfOpenState(1)
+                .waitDurationInOpenState(Duration.ofMinutes(1))
+                .build());
+        client = new PriceClient(pricing.webClient(), 100, 1000, 600, 60, 100,
+                new SimpleMeterRegistry(), circuitBreakers);
+    }
+
+    @After
+    public void tearDown() {
+        pricing.close();
+    }
+
+    /**
+     * Tests that a slow pricing service is cut off by the timeout and
+     * answered without a price.
+     */
+    @Test
+    public void slowServiceFallsBackAfterTimeout() {
+        long start = System.nanoTime();
+        assertNull(client.getPrice(1L));
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), lessThan(450L));
+    }
+
+    /**
+     * Tests that once the breaker opens, prices fall back at once without
+     * calling the pricing service.
+     */
+    @Test
+    public void openBreakerFailsFastWithoutCallingService() {
+        client.getPrice(1L);
+        client.getPrice(2L);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreakers.circuitBreaker("pricing").getState());
+        int hits = pricing.getHits();
+
+        long start = System.nanoTime();
+        assertNull(client.getPrice(3L));
+        assertFalse(client.getPrices(Arrays.asList(4L, 5L)).containsKey(4L));
+        assertThat(Duration.ofNanos(System.nanoTime() - start).toMillis(), lessThan(100L));
+        assertEquals(hits, pricing.getHits());
+    }
+
+    /**
+     * Tests that concurrent lookups of the same vehicle IDs, batched or
+     * single, share the requests already in flight for them.
+     */
+    @Test
+    public void concurrentLookupsShareRequests() throws Exception {
+        try (StubServer fast = new StubServer(200, PriceClientTest::prices)) {
+            PriceClient coalescing = new PriceClient(fast.webClient(), 100, 1000, 600, 60, 5000,
+                    new SimpleMeterRegistry(), CircuitBreakerRegistry.ofDefaults());
+
+            List<Mono<?>> lookups = new ArrayList<>();
+            lookups.add(coalescing.getPricesAsync(Arrays.asList(1L, 2L, 3L), 4));
+            lookups.add(coalescing.getPricesAsync(Arrays.asList(2L, 3L, 4L), 4));
+            for (int i = 0; i < 20; i++) {
+                lookups.add(coalescing.getPriceAsync(1L + i % 4));
+            }
+            Mono.when(lookups).block();
+
+            assertEquals(2, fast.getHits());
+            assertEquals(Money.of("USD", new BigDecimal("1000")), coalescing.getPrice(4L));
+        }
+    }
+
+    /**
+     * Tests that a price evicted while its batch is in flight is not cached
+     * from that batch, so the next lookup asks the pricing service again.
+     */
+    @Test
+    public void evictionDuringBatchIsNotOverwritten() throws Exception {
+        try (StubServer fast = new StubServer(200, PriceClientTest::prices)) {
+            PriceClient evicting = new PriceClient(fast.webClient(), 100, 1000, 600, 60, 5000,
+                    new SimpleMeterRegistry(), CircuitBreakerRegistry.ofDefaults());
+
+            Mono<?> batch = evicting.getPricesAsync(Arrays.asList(1L, 2L), 4).cache();
+            batch.subscribe();
+            Thread.sleep(50);
+            evicting.evict(1L);
+            batch.block();
+            assertEquals(1, fast.getHits());
+
+            evicting.getPrices(Arrays.asList(1L, 2L));
+            assertEquals(2, fast.getHits());
+            evicting.getPrices(Arrays.asList(1L, 2L));
+            assertEquals(2, fast.getHits());
+        }
+    }
+
+    /**
+     * Answers a batch price request with the same price for every vehicle ID,
+     * and a single price request with one price.
+     */
+    private static String prices(String request) {
+        String price = "{\"currency\":\"USD\",\"price\":1000}";
+        if (request.isEmpty()) {
+            return price;
+        }
+        List<String> prices = new ArrayList<>();
+        for (String id : request.replaceAll("[\\[\\]\\s]", "").split(",")) {
+            prices.add("\"" + id + "\":" + price);
+        }
+        return "{" + String.join(",", prices) + "}";
+    }
+}
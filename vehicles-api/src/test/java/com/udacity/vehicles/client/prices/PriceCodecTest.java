@@ -0,0 +1,94 @@
+package com.udacity.vehicles.client.prices;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.udacity.vehicles.domain.Money;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+/**
+ * Implements testing of decoding the JSON and binary price representations.
+ */
+public class PriceCodecTest {
+
+    /**
+     * Tests decoding a HAL price document and a plain JSON price, with the
+     * lower case currency codes the pricing service stores.
+     */
+    @Test
+    public void decodesJson() throws IOException {
+        String hal = "{\"vehicleId\":1,\"currency\":\"inr\",\"price\":9999999.00,"
+                + "\"_links\":{\"self\":{\"href\":\"http://localhost:9292/prices/1\"}}}";
+        assertEquals(Money.of("INR", new BigDecimal("9999999")),
+                PriceCodec.decode(MediaType.valueOf("application/hal+json"), bytes(hal)));
+        assertEquals(Money.of("USD", new BigDecimal("1000")),
+                PriceCodec.decode(null, bytes("{\"currency\":\"USD\",\"price\":1000}")));
+        assertNull(PriceCodec.decode(MediaType.APPLICATION_JSON, bytes("{\"vehicleId\":1}")));
+    }
+
+    /**
+     * Tests decoding a binary price and a binary batch.
+     */
+    @Test
+    public void decodesBinary() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writePrice(out, 7, "usd", new BigDecimal("14500.00"));
+        assertEquals(Money.of("USD", new BigDecimal("14500")),
+                PriceCodec.decode(PriceCodec.BINARY, bytes.toByteArray()));
+
+        bytes.reset();
+        out.writeInt(3);
+        writePrice(out, 1, "inr", new BigDecimal("9999999.00"));
+        writePrice(out, 2, "", null);
+        writePrice(out, 3, "eur", new BigDecimal("-12.5"));
+        Map<Long, Money> prices = PriceCodec.decodeAll(PriceCodec.BINARY, bytes.toByteArray());
+        assertEquals(2, prices.size());
+        assertEquals(Money.of("INR", new BigDecimal("9999999")), prices.get(1L));
+        assertEquals(Money.of("EUR", new BigDecimal("-12.50")), prices.get(3L));
+    }
+
+    /**
+     * Tests that a price with an unknown currency is left out of a batch
+     * without losing the other prices.
+     */
+    @Test
+    public void skipsInvalidPricesOfBatch() throws IOException {
+        String json = "{\"1\":{\"currency\":\"usd\",\"price\":1000},"
+                + "\"2\":{\"currency\":\"xx1\",\"price\":2000},"
+                + "\"3\":{\"currency\":\"eur\",\"price\":3000}}";
+        Map<Long, Money> prices = PriceCodec.decodeAll(MediaType.APPLICATION_JSON, bytes(json));
+        assertEquals(2, prices.size());
+        assertEquals(Money.of("EUR", new BigDecimal("3000")), prices.get(3L));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(2);
+        writePrice(out, 1, "zzz", new BigDecimal("1000"));
+        writePrice(out, 2, "usd", new BigDecimal("2000"));
+        prices = PriceCodec.decodeAll(PriceCodec.BINARY, bytes.toByteArray());
+        assertEquals(1, prices.size());
+        assertEquals(Money.of("USD", new BigDecimal("2000")), prices.get(2L));
+    }
+
+    private static void writePrice(DataOutputStream out, long vehicleId, String currency,
+            BigDecimal price) throws IOException {
+        out.writeLong(vehicleId);
+        out.writeUTF(currency);
+        out.writeInt(price == null ? 0 : price.scale());
+        byte[] unscaled = price == null ? new byte[0] : price.unscaledValue().toByteArray();
+        out.writeShort(unscaled.length);
+        out.write(unscaled);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
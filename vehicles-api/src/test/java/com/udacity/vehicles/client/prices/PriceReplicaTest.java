@@ -0,0 +1,190 @@
+package com.udacity.vehicles.client.prices;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.sun.net.httpserver.HttpServer;
+import com.udacity.vehicles.StubServer;
+import com.udacity.vehicles.domain.Money;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+/**
+ * Implements testing of the PriceReplica against a stub of the change feed,
+ * and of the PriceClient serving prices from it.
+ */
+public class PriceReplicaTest {
+
+    private static final String READY = "event:ready\ndata:3\n\n";
+
+    private static final String FEED = event(1, "\"currency\":\"usd\",\"price\":10000,\"version\":1")
+            + event(2, "\"currency\":\"usd\",\"price\":20000,\"version\":1")
+            + event(1, "\"currency\":\"usd\",\"price\":12000,\"version\":3")
+            + "event:price\ndata:{\"vehicleId\":\n\n"
+            + READY
+            + event(1, "\"currency\":\"usd\",\"price\":11000,\"version\":2")
+            + event(2, "\"version\":4,\"deleted\":true");
+
+    private FeedServer feed;
+    private PriceReplica replica;
+    private final List<Long> changes = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() {
+        replica.stop();
+        feed.close();
+    }
+
+    /**
+     * Tests that the replica is served once ready, keeping the latest
+     * version of each price, dropping removed prices and skipping events
+     * that cannot be decoded, and that only the changes received after it
+     * is ready call the listeners, except a change overtaken by a later one.
+     */
+    @Test
+    public void keepsLatestVersions() throws Exception {
+        start(100, FEED);
+        assertFalse(replica.isLive());
+        replica.start();
+        await(() -> !changes.isEmpty());
+
+        assertTrue(replica.isLive());
+        Map<Long, Money> prices = replica.lookup(Arrays.asList(1L, 2L, 3L));
+        assertEquals(1, prices.size());
+        assertEquals(Money.of("USD", new BigDecimal("12000")), prices.get(1L));
+        assertEquals(Collections.singletonList(2L), changes);
+    }
+
+    /**
+     * Tests that the replica is no longer served once the pricing service
+     * ends the feed, and that the copy of the next connection only calls
+     * the listeners for the prices that differ from the previous copy.
+     */
+    @Test
+    public void reconnectNotifiesDifferences() throws Exception {
+        start(300,
+                event(1, "\"currency\":\"usd\",\"price\":10000,\"version\":1")
+                        + event(2, "\"currency\":\"usd\",\"price\":20000,\"version\":1")
+                        + READY,
+                event(1, "\"currency\":\"usd\",\"price\":10000,\"version\":1")
+                        + event(2, "\"currency\":\"usd\",\"price\":25000,\"version\":5")
+                        + event(3, "\"currency\":\"usd\",\"price\":30000,\"version\":6")
+                        + READY);
+        replica.start();
+        await(() -> feed.connections() >= 2 && replica.isLive() && changes.size() >= 2);
+
+        assertEquals(Money.of("USD", new BigDecimal("25000")),
+                replica.lookup(Collections.singletonList(2L)).get(2L));
+        assertEquals(Arrays.asList(2L, 3L), sorted(changes));
+    }
+
+    /**
+     * Tests that the PriceClient answers from a live replica without
+     * requests to the pricing service.
+     */
+    @Test
+    public void clientServesFromReplica() throws Exception {
+        start(100, FEED);
+        try (StubServer pricing = new StubServer(0, request -> "{\"currency\":\"USD\",\"price\":1}")) {
+            PriceClient client = new PriceClient(pricing.webClient(), 100, 1000, 600, 60, 1000,
+                    new SimpleMeterRegistry(), CircuitBreakerRegistry.ofDefaults());
+            client.setReplica(replica);
+            replica.start();
+            await(() -> !changes.isEmpty());
+
+            assertEquals(Money.of("USD", new BigDecimal("12000")), client.getPrice(1L));
+            assertEquals(1, client.getPrices(Arrays.asList(1L, 2L)).size());
+            assertEquals(0, pricing.getHits());
+        }
+    }
+
+    private void start(long retryDelayMs, String... bodies) throws IOException {
+        feed = new FeedServer(bodies);
+        replica = new PriceReplica(WebClient.create(feed.getEndpoint()), retryDelayMs);
+        replica.onChange(changes::add);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static List<Long> sorted(List<Long> values) {
+        Long[] copy = values.toArray(new Long[0]);
+        Arrays.sort(copy);
+        return Arrays.asList(copy);
+    }
+
+    private static String event(long vehicleId, String fields) {
+        return "event:price\ndata:{\"vehicleId\":" + vehicleId + "," + fields + "}\n\n";
+    }
+
+    /**
+     * Serves the change feed: the n-th connection is sent the n-th body.
+     * Every body but the last ends its connection; the last is held open
+     * until the server is closed, as the pricing service does.
+     */
+    private static final class FeedServer implements AutoCloseable {
+
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final AtomicInteger connections = new AtomicInteger();
+        private final CountDownLatch closed = new CountDownLatch(1);
+
+        FeedServer(String... bodies) throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.setExecutor(executor);
+            server.createContext("/", exchange -> {
+                int connection = Math.min(connections.getAndIncrement(), bodies.length - 1);
+                exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bodies[connection].getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    if (connection == bodies.length - 1) {
+                        closed.await();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            server.start();
+        }
+
+        String getEndpoint() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+
+        int connections() {
+            return connections.get();
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.udacity.vehicles.domain;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+/**
+ * Implements testing of the GeoHash encoding, distances and circle covers.
+ */
+public class GeoHashTest {
+
+    /**
+     * Tests the encoding against known geohashes.
+     */
+    @Test
+    public void encodesKnownPoints() {
+        assertEquals("ezs42", GeoHash.encode(42.605, -5.603, 5));
+        assertEquals("dr5rt", GeoHash.encode(40.730610, -73.935242, 5));
+    }
+
+    /**
+     * Tests the great-circle distance between two cities.
+     */
+    @Test
+    public void measuresDistance() {
+        assertThat(GeoHash.distanceKm(40.7128, -74.0060, 34.0522, -118.2437), closeTo(3936, 5));
+        assertEquals(0, GeoHash.distanceKm(40.7, -73.9, 40.7, -73.9), 1e-9);
+    }
+
+    /**
+     * Tests that every point within a circle lies in one of its covering
+     * cells, in town, across the date line and near a pole.
+     */
+    @Test
+    public void coverHoldsEveryPointInCircle() {
+        double[][] circles = {
+                {40.730610, -73.935242, 0.5}, {40.730610, -73.935242, 5},
+                {40.730610, -73.935242, 300}, {-16.5, 179.99, 20}, {89.9, 10, 50}};
+        Random random = new Random(42);
+        for (double[] circle : circles) {
+            Set<String> cells = GeoHash.cover(circle[0], circle[1], circle[2]);
+            assertThat(cells.size(), lessThanOrEqualTo(16));
+            for (int i = 0; i < 2000; i++) {
+                double lat = Math.max(-90, Math.min(90,
+                        circle[0] + (random.nextDouble() * 2 - 1) * circle[2] / 100));
+                double lon = circle[1] + (random.nextDouble() * 2 - 1) * circle[2] / 20;
+                lon = ((lon + 540) % 360) - 180;
+                if (GeoHash.distanceKm(circle[0], circle[1], lat, lon) > circle[2]) {
+                    continue;
+                }
+                String hash = GeoHash.encode(lat, lon, GeoHash.PRECISION);
+                assertTrue(hash, cells.stream().anyMatch(hash::startsWith));
+            }
+        }
+    }
+
+    /**
+     * Tests that a circle too large for the finer cells is covered by single
+     * character cells, and one too large for those by the empty geohash.
+     */
+    @Test
+    public void coverOfLargeCircleStaysWithinLimit() {
+        Set<String> cells = GeoHash.cover(40.730610, -73.935242, 2000);
+        assertThat(cells.size(), lessThanOrEqualTo(16));
+        assertTrue(cells.toString(), cells.stream().allMatch(cell -> cell.length() == 1));
+        assertTrue(cells.contains(GeoHash.encode(40.730610, -73.935242, 1)));
+
+        assertEquals(Collections.singleton(""), GeoHash.cover(0, 0, 10000));
+    }
+}
@@ -0,0 +1,62 @@
+package com.udacity.vehicles.domain;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.math.BigDecimal;
+import org.junit.Test;
+
+/**
+ * Implements testing of the Money class and its JSON form.
+ */
+public class MoneyTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    /**
+     * Tests that amounts are kept in minor units, rounded half up.
+     */
+    @Test
+    public void storesMinorUnits() {
+        assertEquals(1450000, Money.of("USD", new BigDecimal("14500")).getMinorUnits());
+        assertEquals(1999, Money.of("USD", new BigDecimal("19.985")).getMinorUnits());
+        assertEquals(14500, Money.of("JPY", new BigDecimal("14500")).getMinorUnits());
+        assertEquals(Money.ofMinor("USD", 1450000), Money.of("USD", new BigDecimal("14500.00")));
+    }
+
+    /**
+     * Tests that amounts are written with the scale of their currency.
+     *
+     * @throws Exception if the amount cannot be written
+     */
+    @Test
+    public void writesCurrencyAndAmount() throws Exception {
+        assertEquals("{\"currency\":\"USD\",\"amount\":14500.05}",
+                mapper.writeValueAsString(Money.ofMinor("USD", 1450005)));
+        assertEquals("{\"currency\":\"USD\",\"amount\":-0.50}",
+                mapper.writeValueAsString(Money.ofMinor("USD", -50)));
+        assertEquals("{\"currency\":\"JPY\",\"amount\":14500}",
+                mapper.writeValueAsString(Money.ofMinor("JPY", 14500)));
+    }
+
+    /**
+     * Tests that the JSON form is read back to the same amount.
+     *
+     * @throws Exception if the amount cannot be read
+     */
+    @Test
+    public void readsWrittenAmount() throws Exception {
+        Money price = Money.ofMinor("USD", 1450005);
+        assertEquals(price, mapper.readValue(mapper.writeValueAsString(price), Money.class));
+    }
+
+    /**
+     * Tests that amounts are ordered by currency, then by amount.
+     */
+    @Test
+    public void ordersByCurrencyThenAmount() {
+        assertTrue(Money.ofMinor("USD", 100).compareTo(Money.ofMinor("USD", 200)) < 0);
+        assertTrue(Money.ofMinor("EUR", 900).compareTo(Money.ofMinor("USD", 100)) < 0);
+    }
+}
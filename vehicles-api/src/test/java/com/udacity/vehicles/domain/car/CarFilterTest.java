@@ -0,0 +1,124 @@
+package com.udacity.vehicles.domain.car;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implements testing of the CarFilter predicates against the database, and
+ * of the indexes they rely on.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@Transactional
+public class CarFilterTest {
+
+    @Autowired
+    private CarRepository repository;
+
+    @Autowired
+    private ManufacturerRepository manufacturers;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private PriceClient priceClient;
+
+    @MockBean
+    private MapsClient mapsClient;
+
+    /**
+     * Stores cars of different makes, conditions, years, mileages and fuels.
+     */
+    @Before
+    public void setup() {
+        repository.deleteAll();
+        save("Impala", 101, Condition.USED, 2016, 42000, "Gasoline");
+        save("Malibu", 101, Condition.NEW, 2019, 10, "Gasoline");
+        save("Bolt", 101, Condition.NEW, 2019, 20, "Electric");
+        save("Focus", 102, Condition.USED, 2014, 91000, "Gasoline");
+    }
+
+    /**
+     * Tests that an empty filter selects all cars.
+     */
+    @Test
+    public void emptyFilterSelectsAll() {
+        assertEquals(4, repository.findAll(new CarFilter()).size());
+    }
+
+    /**
+     * Tests that every set attribute restricts the selection.
+     */
+    @Test
+    public void attributesAreCombined() {
+        CarFilter filter = new CarFilter();
+        filter.setManufacturer(101);
+        filter.setMinModelYear(2016);
+        filter.setMaxMileage(50000);
+        assertThat(models(filter), containsInAnyOrder("Impala", "Malibu", "Bolt"));
+
+        filter.setCondition(Condition.NEW);
+        filter.setFuelType("Gasoline");
+        assertThat(models(filter), containsInAnyOrder("Malibu"));
+
+        CarFilter older = new CarFilter();
+        older.setMaxModelYear(2016);
+        assertThat(models(older), containsInAnyOrder("Impala", "Focus"));
+    }
+
+    /**
+     * Tests that the filtered columns are indexed.
+     */
+    @Test
+    public void filteredColumnsAreIndexed() {
+        List<String> indexes = jdbcTemplate.queryForList(
+                "select index_name from information_schema.indexes where table_name = 'CAR'",
+                String.class);
+        for (String index : new String[] {"IDX_CAR_MANUFACTURER", "IDX_CAR_CONDITION",
+                "IDX_CAR_MODEL_YEAR", "IDX_CAR_MILEAGE", "IDX_CAR_FUEL_TYPE"}) {
+            assertTrue(index, indexes.contains(index));
+        }
+    }
+
+    private List<String> models(CarFilter filter) {
+        return repository.findAll(filter, Sort.by("id")).stream()
+                .map(car -> car.getDetails().getModel())
+                .collect(Collectors.toList());
+    }
+
+    private void save(String model, int manufacturer, Condition condition, int modelYear,
+            int mileage, String fuelType) {
+        Car car = new Car();
+        car.setCondition(condition);
+        car.setLocation(new Location(40.730610, -73.935242));
+        Details details = car.getDetails();
+        details.setManufacturer(manufacturers.getOne(manufacturer));
+        details.setModel(model);
+        details.setBody("sedan");
+        details.setModelYear(modelYear);
+        details.setMileage(mileage);
+        details.setFuelType(fuelType);
+        repository.save(car);
+    }
+}
@@ -0,0 +1,156 @@
+package com.udacity.vehicles.domain.car;
+
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.Condition;
+import com.udacity.vehicles.domain.GeoHash;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.manufacturer.ManufacturerRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Implements testing of the geohash stored with each car, of finding cars
+ * by geohash cell, and of the number of statements the list queries take.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public class CarRepositoryTest {
+
+    @Autowired
+    private CarRepository repository;
+
+    @Autowired
+    private ManufacturerRepository manufacturers;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @MockBean
+    private PriceClient priceClient;
+
+    @MockBean
+    private MapsClient mapsClient;
+
+    /**
+     * Stores cars in Manhattan, Brooklyn and Boston.
+     */
+    @Before
+    public void setup() {
+        repository.deleteAll();
+        save("Manhattan", 40.758896, -73.985130);
+        save("Brooklyn", 40.678178, -73.944158);
+        save("Boston", 42.360081, -71.058884);
+    }
+
+    /**
+     * Tests that only the cars in the covering cells are found.
+     */
+    @Test
+    public void findsCarsInCoveringCells() {
+        assertThat(models(GeoHash.cover(40.758896, -73.985130, 1)),
+                containsInAnyOrder("Manhattan"));
+        assertThat(models(GeoHash.cover(40.7128, -74.0060, 15)),
+                containsInAnyOrder("Manhattan", "Brooklyn"));
+    }
+
+    /**
+     * Tests that the geohash follows the car when it is moved.
+     */
+    @Test
+    public void movedCarIsFoundAtNewLocation() {
+        Car car = repository.findAll().stream()
+                .filter(c -> "Boston".equals(c.getDetails().getModel()))
+                .findFirst().get();
+        car.setLocation(new Location(40.758000, -73.985000));
+        repository.saveAndFlush(car);
+
+        assertThat(models(GeoHash.cover(40.758896, -73.985130, 1)),
+                containsInAnyOrder("Manhattan", "Boston"));
+    }
+
+    /**
+     * Tests that listing cars takes one statement however many cars and
+     * manufacturers there are: manufacturers are fetched along with the cars,
+     * or found in the second-level cache.
+     */
+    @Test
+    public void listingTakesOneStatement() {
+        Statistics statistics = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        manufacturers.findAll();
+        assertEquals(1, statements(statistics, () -> repository.findAll()));
+
+        for (int i = 0; i < 40; i++) {
+            save("Car " + i, 100 + i % 5, 40.7 + i * 1e-3, -73.9);
+        }
+
+        assertEquals(1, statements(statistics, () -> repository.findAll()));
+        assertEquals(1, statements(statistics,
+                () -> repository.findByIdGreaterThan(0L, PageRequest.of(0, 20, Sort.by("id")))));
+        assertEquals(1, statements(statistics, () -> {
+            try (Stream<Car> cars = repository.streamAll()) {
+                cars.forEach(car -> car.getDetails().getManufacturer().getName());
+            }
+        }));
+        assertEquals(1, statements(statistics,
+                () -> repository.findAll(new CarFilter(), Sort.by("id"))));
+        assertThat(statistics.getSecondLevelCacheHitCount(), greaterThan(0L));
+        assertEquals(1, statements(statistics,
+                () -> repository.findInGeohashCells(GeoHash.cover(40.72, -73.9, 5))));
+    }
+
+    /**
+     * Counts the statements a read takes, starting from an empty persistence context.
+     */
+    private long statements(Statistics statistics, Runnable read) {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        read.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private List<String> models(Collection<String> cells) {
+        return repository.findInGeohashCells(cells).stream()
+                .map(car -> car.getDetails().getModel())
+                .collect(Collectors.toList());
+    }
+
+    private void save(String model, double lat, double lon) {
+        save(model, 101, lat, lon);
+    }
+
+    private void save(String model, int manufacturer, double lat, double lon) {
+        Car car = new Car();
+        car.setCondition(Condition.USED);
+        car.setLocation(new Location(lat, lon));
+        Details details = car.getDetails();
+        details.setManufacturer(manufacturers.getOne(manufacturer));
+        details.setModel(model);
+        details.setBody("sedan");
+        repository.saveAndFlush(car);
+    }
+}
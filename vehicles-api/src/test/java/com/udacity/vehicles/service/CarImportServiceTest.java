@@ -0,0 +1,135 @@
+package com.udacity.vehicles.service;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarRepository;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.stream.Collectors;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+/**
+ * Implements testing of the bulk import: rejected rows, both input formats,
+ * and the number of statements a large import takes.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "vehicles.import.chunk-size=100"})
+public class CarImportServiceTest {
+
+    @Autowired
+    private CarImportService importService;
+
+    @Autowired
+    private CarRepository repository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private PriceClient priceClient;
+
+    @MockBean
+    private MapsClient mapsClient;
+
+    /**
+     * Removes the cars stored by other tests.
+     */
+    @Before
+    public void setup() {
+        repository.deleteAll();
+    }
+
+    /**
+     * Tests that invalid rows are reported by position and the others stored.
+     */
+    @Test
+    public void rejectsInvalidRows() throws IOException {
+        String json = car(1, 101) + "\n"
+                + "{\"condition\":\"USED\",\"details\":{\"manufacturer\":{\"code\":101}},"
+                + "\"location\":{\"lat\":40.7,\"lon\":-73.9}}\n"
+                + car(3, 999) + "\n"
+                + car(4, 101).replace("USED", "BROKEN") + "\n"
+                + car(5, 102) + "\n";
+
+        ImportReport report = importService.importCars(stream(json));
+
+        assertEquals(2, report.getImported());
+        assertEquals(3, report.getRejected());
+        assertThat(report.getErrors().stream().map(ImportReport.RowError::getRow)
+                .collect(Collectors.toList()), contains(1, 2, 3));
+        assertThat(report.getErrors().get(0).getErrors(), hasItem("details.model: must not be blank"));
+        assertThat(report.getErrors().get(1).getErrors().get(0), containsString("unknown manufacturer"));
+        assertEquals(2, repository.count());
+    }
+
+    /**
+     * Tests that a JSON array is imported like newline delimited JSON, and
+     * that given IDs and addresses are not kept.
+     */
+    @Test
+    public void importsJsonArray() throws IOException {
+        String json = "[" + car(1, 101).replace("{\"lat\"", "{\"address\":\"1 Main St\",\"lat\"")
+                + "," + car(2, 102) + "]";
+
+        ImportReport report = importService.importCars(stream(json));
+
+        assertEquals(2, report.getImported());
+        assertEquals(0, report.getRejected());
+        for (Car car : repository.findAll()) {
+            assertNull(car.getLocation().getAddress());
+        }
+    }
+
+    /**
+     * Tests that a large import sends its inserts in batches, taking far
+     * fewer statements than cars.
+     */
+    @Test
+    public void batchesInserts() throws IOException {
+        int cars = 2000;
+        StringBuilder json = new StringBuilder();
+        for (int i = 0; i < cars; i++) {
+            json.append(car(i, 100 + i % 5)).append('\n');
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        ImportReport report = importService.importCars(stream(json.toString()));
+
+        assertEquals(cars, report.getImported());
+        assertEquals(cars, repository.count());
+        assertThat(statistics.getPrepareStatementCount(), lessThan(cars / 10L));
+    }
+
+    private static String car(int row, int manufacturer) {
+        return "{\"id\":" + row + ",\"condition\":\"USED\",\"details\":{\"body\":\"sedan\","
+                + "\"model\":\"Model " + row + "\",\"manufacturer\":{\"code\":" + manufacturer + "},"
+                + "\"modelYear\":2018,\"mileage\":" + row + "},"
+                + "\"location\":{\"lat\":40.7,\"lon\":-73.9}}";
+    }
+
+    private static ByteArrayInputStream stream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
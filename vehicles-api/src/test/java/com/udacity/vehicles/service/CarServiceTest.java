@@ -0,0 +1,340 @@
+package com.udacity.vehicles.service;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.udacity.vehicles.StubServer;
+import com.udacity.vehicles.client.maps.AddressCache;
+import com.udacity.vehicles.client.maps.MapsClient;
+import com.udacity.vehicles.client.prices.PriceClient;
+import com.udacity.vehicles.domain.GeoHash;
+import com.udacity.vehicles.domain.Location;
+import com.udacity.vehicles.domain.Money;
+import com.udacity.vehicles.domain.car.Car;
+import com.udacity.vehicles.domain.car.CarFilter;
+import com.udacity.vehicles.domain.car.CarRepository;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.persistence.EntityManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Implements latency testing of the CarService enrichment against local
+ * stubs of the pricing and maps services, and testing of when addresses
+ * are looked up again, of selecting cars by price, of finding cars near
+ * a point and of streaming cars in chunks.
+ */
+public class CarServiceTest {
+
+    private static final long STUB_LATENCY_MS = 100;
+    private static final int CARS = 20;
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private StubServer pricing;
+    private StubServer maps;
+    private CarRepository repository;
+    private List<Car> cars;
+
+    /**
+     * Starts the service stubs and fills the repository with example cars.
+     *
+     * @throws Exception if a stub cannot be started
+     */
+    @Before
+    public void setup() throws Exception {
+        pricing = new StubServer(STUB_LATENCY_MS, CarServiceTest::priceBatch);
+        maps = new StubServer(STUB_LATENCY_MS, CarServiceTest::addressBatch);
+
+        cars = new ArrayList<>();
+        for (long id = 1; id <= CARS; id++) {
+            Car car = new Car();
+            car.setId(id);
+            car.setLocation(new Location(40.730610 + (id - 1) * 0.01, -73.935242));
+            cars.add(car);
+        }
+        repository = mock(CarRepository.class);
+        given(repository.findAll()).willReturn(cars);
+        given(repository.findById(1L)).willReturn(Optional.of(cars.get(0)));
+        given(repository.save(any())).willAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @After
+    public void tearDown() {
+        pricing.close();
+        maps.close();
+    }
+
+    /**
+     * Tests that prices and addresses are fetched with one HTTP exchange per
+     * chunk of cars rather than one per car.
+     */
+    @Test
+    public void listSendsOneRequestPerChunk() {
+        timeList(service(CARS, 5));
+
+        verify(repository, timeout(5000).times(CARS)).updateAddress(anyLong(),
+                argThat(location -> "777 Brockton Avenue".equals(location.getAddress())));
+        assertEquals(CARS / 5, pricing.getHits());
+        assertEquals(CARS / 5, maps.getHits());
+    }
+
+    /**
+     * Tests that listing with concurrent lookups costs a fraction of looking
+     * the cars up one at a time.
+     */
+    @Test
+    public void listEnrichesCarsConcurrently() {
+        long serialMs = timeList(service(1, 1));
+        long concurrentMs = timeList(service(CARS, 1));
+
+        assertThat(concurrentMs * 5, lessThan(serialMs));
+    }
+
+    /**
+     * Tests that no more than the configured number of requests are in flight at once.
+     */
+    @Test
+    public void listHonorsConcurrencyCap() {
+        timeList(service(4, 1));
+
+        verify(repository, timeout(5000).times(CARS)).updateAddress(anyLong(), any());
+        assertEquals(CARS, maps.getHits());
+        assertThat(pricing.getPeakInFlight(), lessThanOrEqualTo(4));
+        assertThat(maps.getPeakInFlight(), lessThanOrEqualTo(4));
+    }
+
+    /**
+     * Tests that listing cars whose address was resolved for their current
+     * coordinates reads the address from the database only.
+     */
+    @Test
+    public void listDoesNotGeocodeResolvedCars() {
+        cars.forEach(car -> resolve(car.getLocation()));
+
+        service(CARS, 5).list();
+
+        assertEquals(0, maps.getHits());
+    }
+
+    /**
+     * Tests that cars are selected and ordered by their typed prices, while
+     * the database is only asked to order by stored properties.
+     */
+    @Test
+    public void listFiltersAndSortsByPrice() {
+        CarFilter filter = new CarFilter();
+        given(repository.findAll(eq(filter), any(Sort.class))).willReturn(new ArrayList<>(cars));
+
+        List<Car> listed = service(CARS, 5).list(filter,
+                PriceRange.between(priceOf(4L), priceOf(8L)), Sort.by(Sort.Direction.DESC, "price"));
+
+        verify(repository).findAll(filter, Sort.unsorted());
+        assertEquals(5, listed.size());
+        for (int i = 0; i < listed.size(); i++) {
+            assertEquals(Long.valueOf(8 - i), listed.get(i).getId());
+            assertEquals(priceOf(8L - i), listed.get(i).getPrice());
+        }
+    }
+
+    /**
+     * Tests that cars near a point are read from the covering geohash cells
+     * and returned within the radius, nearest first.
+     */
+    @Test
+    public void listNearSortsByDistance() {
+        given(repository.findInGeohashCells(any())).willReturn(new ArrayList<>(cars));
+
+        List<Car> near = service(CARS, 5).listNear(40.781610, -73.935242, 2.0);
+
+        verify(repository).findInGeohashCells(
+                argThat(cells -> cells.contains(GeoHash.encode(40.781610, -73.935242, 5))));
+        assertEquals(3, near.size());
+        assertEquals(Long.valueOf(6), near.get(0).getId());
+        assertEquals(Long.valueOf(7), near.get(1).getId());
+        assertEquals(Long.valueOf(5), near.get(2).getId());
+        assertEquals(priceOf(6L), near.get(0).getPrice());
+    }
+
+    /**
+     * Tests that saving a car looks its address up again only once it moved.
+     */
+    @Test
+    public void saveGeocodesOnlyWhenMoved() {
+        CarService service = service(CARS, 5);
+        resolve(cars.get(0).getLocation());
+
+        Car unmoved = new Car();
+        unmoved.setId(1L);
+        unmoved.setLocation(new Location(40.730610, -73.935242));
+        service.save(unmoved);
+        verify(repository, after(500).never()).updateAddress(anyLong(), any());
+
+        Car moved = new Car();
+        moved.setId(1L);
+        moved.setLocation(new Location(42.0, -71.0));
+        service.save(moved);
+        verify(repository, timeout(5000)).updateAddress(eq(1L),
+                argThat(location -> location.getLat() == 42.0));
+        assertEquals(1, maps.getHits());
+    }
+
+    /**
+     * Tests that a car moved while its old coordinates are being looked up
+     * is looked up again at its new coordinates, and that a lookup already
+     * running for the same coordinates is not repeated.
+     */
+    @Test
+    public void geocodeAsyncLooksUpMovedCarAgain() {
+        CarService service = service(CARS, 5);
+        Car car = cars.get(0);
+        service.geocodeAsync(Collections.singletonList(car));
+        service.geocodeAsync(Collections.singletonList(car));
+
+        car.setLocation(new Location(42.0, -71.0));
+        service.geocodeAsync(Collections.singletonList(car));
+
+        verify(repository, timeout(5000)).updateAddress(eq(1L),
+                argThat(location -> location.getLat() == 40.730610));
+        verify(repository, timeout(5000)).updateAddress(eq(1L),
+                argThat(location -> location.getLat() == 42.0));
+        assertEquals(2, maps.getHits());
+    }
+
+    /**
+     * Tests that streaming hands every car over in enriched chunks of 100,
+     * the last one holding the remainder.
+     */
+    @Test
+    public void streamHandsOverChunks() {
+        List<Car> fleet = new ArrayList<>();
+        for (long id = 1; id <= 250; id++) {
+            Car car = new Car();
+            car.setId(id);
+            car.setLocation(new Location(40.730610, -73.935242));
+            resolve(car.getLocation());
+            fleet.add(car);
+        }
+        given(repository.streamAll()).willReturn(fleet.stream());
+        CarService service = service(CARS, 100);
+        ReflectionTestUtils.setField(service, "entityManager", mock(EntityManager.class));
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        service.stream(chunk -> {
+            chunkSizes.add(chunk.size());
+            for (Car car : chunk) {
+                assertEquals(priceOf(car.getId()), car.getPrice());
+            }
+        });
+
+        assertEquals(Arrays.asList(100, 100, 50), chunkSizes);
+    }
+
+    private CarService service(int concurrency, int batchSize) {
+        return new CarService(repository,
+                new MapsClient(maps.webClient(),
+                        new AddressCache(4, 1 << 20, new SimpleMeterRegistry()), batchSize, 5000,
+                        CircuitBreakerRegistry.ofDefaults()),
+                new PriceClient(pricing.webClient(), batchSize, 1000, 600, 60, 5000,
+                        new SimpleMeterRegistry(), CircuitBreakerRegistry.ofDefaults()),
+                concurrency, Schedulers.elastic());
+    }
+
+    /**
+     * Gets the price the pricing stub answers for a vehicle id.
+     */
+    private static Money priceOf(Long id) {
+        return Money.of("USD", BigDecimal.valueOf(10000 + id * 500));
+    }
+
+    /**
+     * Answers a batch price request with a price that grows with the vehicle id.
+     */
+    private static String priceBatch(String request) {
+        try {
+            List<Long> ids = MAPPER.readValue(request, new TypeReference<List<Long>>() {
+            });
+            Map<Long, Map<String, Object>> prices = new HashMap<>();
+            for (Long id : ids) {
+                Map<String, Object> price = new HashMap<>();
+                price.put("currency", "USD");
+                price.put("price", priceOf(id).getAmount());
+                price.put("vehicleId", id);
+                prices.put(id, price);
+            }
+            return MAPPER.writeValueAsString(prices);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Answers a batch address request with the same address for every coordinate pair.
+     */
+    private static String addressBatch(String request) {
+        try {
+            List<Map<String, Object>> coordinates = MAPPER.readValue(request,
+                    new TypeReference<List<Map<String, Object>>>() {
+                    });
+            List<Map<String, Object>> addresses = new ArrayList<>();
+            for (int i = 0; i < coordinates.size(); i++) {
+                Map<String, Object> address = new HashMap<>();
+                address.put("address", "777 Brockton Avenue");
+                address.put("city", "Abington");
+                address.put("state", "MA");
+                address.put("zip", "2351");
+                addresses.add(address);
+            }
+            return MAPPER.writeValueAsString(addresses);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long timeList(CarService service) {
+        long start = System.nanoTime();
+        List<Car> cars = service.list();
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(CARS, cars.size());
+        for (Car car : cars) {
+            assertEquals(priceOf(car.getId()), car.getPrice());
+        }
+        return elapsedMs;
+    }
+
+    /**
+     * Marks the address of a location as resolved, as if read back from the database.
+     */
+    private static void resolve(Location location) {
+        location.setAddress("777 Brockton Avenue");
+        ReflectionTestUtils.setField(location, "addressFingerprint", location.fingerprint());
+    }
+}